@@ -0,0 +1,68 @@
+package com.itambition.taskmanagment.audit;
+
+import java.time.Instant;
+
+/**
+ * One audited mutation. Encoded as a fixed-size record, see {@link AuditSegmentFormat}.
+ */
+public final class AuditEvent {
+
+    public enum Type {
+        TASK_CREATED(1), TASK_UPDATED(2), TASK_DELETED(3), USER_CREATED(4);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown audit event type: " + code);
+        }
+    }
+
+    private final Type type;
+    private final long timestamp;
+    private final long entityId;
+    private final long ownerId;
+
+    /**
+     * @param ownerId owning user of a task, 0 when there is none
+     */
+    public AuditEvent(Type type, long timestamp, long entityId, long ownerId) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.entityId = entityId;
+        this.ownerId = ownerId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(timestamp) + " " + type + " id=" + entityId + (ownerId != 0 ? " owner=" + ownerId : "");
+    }
+}
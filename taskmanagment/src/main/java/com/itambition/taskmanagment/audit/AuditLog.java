@@ -0,0 +1,332 @@
+package com.itambition.taskmanagment.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only audit log of mutations on memory-mapped segment files.
+ *
+ * The request path only enqueues an event on a lock-free queue and wakes
+ * the writer if it is idle. A single writer thread drains the queue into the
+ * current segment, forces it to disk every {@code fsync-every-events} events
+ * or {@code fsync-interval-ms}, rotates segments by size or age and deletes
+ * segments beyond the retention limits; when idle it parks until the next
+ * fsync or rotation is due. Segments are preallocated and cut to their
+ * written length when closed, so size-based retention counts what was
+ * written. When the queue is full, events are dropped and counted rather
+ * than slowing down requests.
+ */
+@Component
+public class AuditLog implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long segmentMaxAgeMillis;
+    private final long retentionBytes;
+    private final long retentionMillis;
+    private final int queueCapacity;
+    private final int fsyncEveryEvents;
+    private final long fsyncIntervalNanos;
+
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong enqueuedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean writerIdle;
+    private Thread writer;
+
+    // Writer thread state
+    private MappedByteBuffer segment;
+    private Path segmentFile;
+    private long segmentStartMillis;
+    private long segmentSequence;
+    private int unsyncedEvents;
+    private long lastSyncNanos;
+    private final byte[] scratch = new byte[AuditSegmentFormat.PAYLOAD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    public AuditLog(@Value("${taskmanagment.audit.enabled:true}") boolean enabled,
+                    @Value("${taskmanagment.audit.dir:${java.io.tmpdir}/taskmanagment/audit}") String directory,
+                    @Value("${taskmanagment.audit.segment-bytes:16777216}") int segmentBytes,
+                    @Value("${taskmanagment.audit.segment-max-age-ms:3600000}") long segmentMaxAgeMillis,
+                    @Value("${taskmanagment.audit.retention-bytes:1073741824}") long retentionBytes,
+                    @Value("${taskmanagment.audit.retention-ms:2592000000}") long retentionMillis,
+                    @Value("${taskmanagment.audit.queue-capacity:100000}") int queueCapacity,
+                    @Value("${taskmanagment.audit.fsync-every-events:1000}") int fsyncEveryEvents,
+                    @Value("${taskmanagment.audit.fsync-interval-ms:1000}") long fsyncIntervalMillis) {
+        if (segmentBytes < AuditSegmentFormat.HEADER_SIZE + AuditSegmentFormat.RECORD_SIZE) {
+            throw new IllegalArgumentException("Audit segment too small: " + segmentBytes);
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.segmentMaxAgeMillis = segmentMaxAgeMillis;
+        this.retentionBytes = retentionBytes;
+        this.retentionMillis = retentionMillis;
+        this.queueCapacity = queueCapacity;
+        this.fsyncEveryEvents = fsyncEveryEvents;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            resumeAfterExistingSegments();
+            openSegment();
+        } catch (IOException e) {
+            log.error("Audit log disabled, cannot open segment in {}: {}", directory, e.getMessage());
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Enqueue an event; never blocks
+     */
+    public void record(AuditEvent.Type type, Long entityId, Long ownerId) {
+        if (!running || entityId == null) {
+            return;
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        queue.offer(new AuditEvent(type, System.currentTimeMillis(), entityId, ownerId == null ? 0 : ownerId));
+        enqueuedEvents.incrementAndGet();
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            AuditEvent event = queue.poll();
+            if (event == null) {
+                syncIfDue(false);
+                rotateIfExpired();
+                awaitEvents();
+                continue;
+            }
+            queued.decrementAndGet();
+            try {
+                append(event);
+            } catch (IOException | RuntimeException e) {
+                droppedEvents.incrementAndGet();
+                log.error("Failed to write audit event {}: {}", event, e.getMessage());
+            }
+        }
+        syncIfDue(true);
+        truncate(segmentFile, segment.position());
+    }
+
+    private void awaitEvents() {
+        writerIdle = true;
+        // Re-check after publishing the flag: an event offered before it was seen won't unpark us
+        if (running && queue.isEmpty()) {
+            long nanos = nanosUntilDue();
+            if (nanos == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else if (nanos > 0) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        }
+        writerIdle = false;
+    }
+
+    /**
+     * Time until the pending fsync or the age rotation of a non-empty segment
+     */
+    private long nanosUntilDue() {
+        long nanos = Long.MAX_VALUE;
+        if (unsyncedEvents > 0) {
+            nanos = fsyncIntervalNanos - (System.nanoTime() - lastSyncNanos);
+        }
+        if (segment.position() > AuditSegmentFormat.HEADER_SIZE) {
+            long ageMillis = segmentStartMillis + segmentMaxAgeMillis - System.currentTimeMillis();
+            nanos = Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(ageMillis));
+        }
+        return nanos;
+    }
+
+    private void rotateIfExpired() {
+        if (segment.position() > AuditSegmentFormat.HEADER_SIZE
+                && System.currentTimeMillis() - segmentStartMillis >= segmentMaxAgeMillis) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                log.error("Failed to rotate audit segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void append(AuditEvent event) throws IOException {
+        if (segment.remaining() < AuditSegmentFormat.RECORD_SIZE
+                || event.getTimestamp() - segmentStartMillis > segmentMaxAgeMillis) {
+            rotate();
+        }
+        AuditSegmentFormat.writeRecord(segment, event, scratch, crc);
+        writtenEvents.incrementAndGet();
+        unsyncedEvents++;
+        syncIfDue(false);
+    }
+
+    private void syncIfDue(boolean force) {
+        if (segment == null || unsyncedEvents == 0) {
+            return;
+        }
+        if (force || unsyncedEvents >= fsyncEveryEvents || System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+            segment.force();
+            unsyncedEvents = 0;
+            lastSyncNanos = System.nanoTime();
+        }
+    }
+
+    private void rotate() throws IOException {
+        syncIfDue(true);
+        truncate(segmentFile, segment.position());
+        openSegment();
+        rotations.incrementAndGet();
+        applyRetention();
+    }
+
+    /**
+     * Continue the sequence and start times of the segments left by a previous
+     * run, so new segments sort after them and never reuse their names
+     */
+    private void resumeAfterExistingSegments() {
+        File[] files = directory.toFile().listFiles((dir, name) -> AuditSegmentFormat.isSegment(name));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        File newest = files[files.length - 1];
+        segmentStartMillis = AuditSegmentFormat.startMillis(newest.getName());
+        segmentSequence = AuditSegmentFormat.sequence(newest.getName()) + 1;
+        // Older segments were cut when rotated; the newest is still preallocated if the last run crashed
+        try (FileChannel channel = FileChannel.open(newest.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > AuditSegmentFormat.HEADER_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                truncate(newest.toPath(), AuditSegmentFormat.writtenLength(buffer));
+            }
+        } catch (IOException e) {
+            log.warn("Could not read audit segment {}: {}", newest, e.getMessage());
+        }
+    }
+
+    /**
+     * Cut the unwritten, preallocated tail of a segment that is no longer appended to
+     */
+    private static void truncate(Path file, int length) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            log.warn("Could not truncate audit segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void openSegment() throws IOException {
+        // Never older than the previous segment, even if the clock steps back
+        segmentStartMillis = Math.max(System.currentTimeMillis(), segmentStartMillis);
+        Path file = directory.resolve(AuditSegmentFormat.fileName(segmentStartMillis, segmentSequence++));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segmentFile = file;
+        AuditSegmentFormat.writeHeader(segment, segmentStartMillis);
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private void applyRetention() {
+        File[] files = directory.toFile().listFiles((dir, name) -> AuditSegmentFormat.isSegment(name));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        long total = 0;
+        for (int i = 0; i < files.length - 1; i++) {
+            total += files[i].length();
+        }
+        // The current segment is preallocated; count what was written to it
+        total += segment.position();
+        long oldestKept = System.currentTimeMillis() - retentionMillis;
+        // Never delete the newest (current) segment
+        for (int i = 0; i < files.length - 1; i++) {
+            File file = files[i];
+            if (total <= retentionBytes && AuditSegmentFormat.startMillis(file.getName()) >= oldestKept) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("taskmanagment.audit.enqueued", enqueuedEvents, AtomicLong::get).register(registry);
+        FunctionCounter.builder("taskmanagment.audit.dropped", droppedEvents, AtomicLong::get).register(registry);
+        FunctionCounter.builder("taskmanagment.audit.written", writtenEvents, AtomicLong::get).register(registry);
+        FunctionCounter.builder("taskmanagment.audit.rotations", rotations, AtomicLong::get).register(registry);
+        Gauge.builder("taskmanagment.audit.queue.size", queued, AtomicInteger::get).register(registry);
+    }
+}
@@ -0,0 +1,85 @@
+package com.itambition.taskmanagment.audit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Scans audit segments for events in a time range.
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.itambition.taskmanagment.audit.AuditLogReader \
+ *      org.springframework.boot.loader.PropertiesLauncher &lt;dir&gt; [from] [to]
+ * </pre>
+ * from and to are ISO-8601 instants, e.g. 2024-05-01T00:00:00Z; to is exclusive.
+ */
+public class AuditLogReader {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: AuditLogReader <dir> [from] [to]");
+            System.exit(2);
+        }
+        long from = args.length > 1 ? Instant.parse(args[1]).toEpochMilli() : Long.MIN_VALUE;
+        long to = args.length > 2 ? Instant.parse(args[2]).toEpochMilli() : Long.MAX_VALUE;
+        for (AuditEvent event : read(Paths.get(args[0]), from, to)) {
+            System.out.println(event);
+        }
+    }
+
+    /**
+     * Events with from &lt;= timestamp &lt; to, in write order
+     */
+    public static List<AuditEvent> read(Path directory, long from, long to) throws IOException {
+        File[] files = directory.toFile().listFiles((dir, name) -> AuditSegmentFormat.isSegment(name));
+        List<AuditEvent> events = new ArrayList<>();
+        if (files == null) {
+            return events;
+        }
+        Arrays.sort(files);
+        for (int i = 0; i < files.length; i++) {
+            long start = AuditSegmentFormat.startMillis(files[i].getName());
+            // A segment ends where the next one starts
+            boolean endsBeforeRange = i + 1 < files.length
+                    && AuditSegmentFormat.startMillis(files[i + 1].getName()) < from;
+            if (start >= to || endsBeforeRange) {
+                continue;
+            }
+            readSegment(files[i].toPath(), from, to, events);
+        }
+        return events;
+    }
+
+    private static void readSegment(Path file, long from, long to, List<AuditEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < AuditSegmentFormat.HEADER_SIZE
+                    || buffer.getInt() != AuditSegmentFormat.MAGIC
+                    || buffer.getShort() != AuditSegmentFormat.VERSION) {
+                throw new IOException("Not an audit segment: " + file);
+            }
+            buffer.getLong();
+            scan(buffer, from, to, events);
+        }
+    }
+
+    private static void scan(ByteBuffer buffer, long from, long to, List<AuditEvent> events) {
+        byte[] scratch = new byte[AuditSegmentFormat.PAYLOAD_SIZE];
+        CRC32 crc = new CRC32();
+        AuditEvent event;
+        while ((event = AuditSegmentFormat.readRecord(buffer, scratch, crc)) != null) {
+            if (event.getTimestamp() >= from && event.getTimestamp() < to) {
+                events.add(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.itambition.taskmanagment.audit;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Binary layout of audit segment files.
+ * <pre>
+ * header: magic (int) | version (short) | segment start millis (long)
+ * record: type (byte) | timestamp millis (long) | entity id (long) | owner id (long) | CRC32 of the preceding 25 bytes (int)
+ * </pre>
+ * Segments are preallocated with zeros, so a zero type byte marks the end of
+ * the written records; a CRC mismatch marks a torn final record.
+ */
+final class AuditSegmentFormat {
+
+    static final int MAGIC = 0x54415544;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 8;
+    static final int PAYLOAD_SIZE = 1 + 8 + 8 + 8;
+    static final int RECORD_SIZE = PAYLOAD_SIZE + 4;
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".seg";
+
+    private AuditSegmentFormat() {
+    }
+
+    static String fileName(long startMillis, long sequence) {
+        return String.format("%s%013d-%06d%s", FILE_PREFIX, startMillis, sequence % 1_000_000, FILE_SUFFIX);
+    }
+
+    /**
+     * Segment start millis encoded in a segment file name
+     */
+    static long startMillis(String fileName) {
+        return Long.parseLong(fileName.substring(FILE_PREFIX.length(), FILE_PREFIX.length() + 13));
+    }
+
+    /**
+     * Sequence number encoded in a segment file name
+     */
+    static long sequence(String fileName) {
+        int start = FILE_PREFIX.length() + 13 + 1;
+        return Long.parseLong(fileName.substring(start, start + 6));
+    }
+
+    static boolean isSegment(String fileName) {
+        return fileName.startsWith(FILE_PREFIX) && fileName.endsWith(FILE_SUFFIX);
+    }
+
+    static void writeHeader(ByteBuffer buffer, long startMillis) {
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(startMillis);
+    }
+
+    static void writeRecord(ByteBuffer buffer, AuditEvent event, byte[] scratch, CRC32 crc) {
+        ByteBuffer payload = ByteBuffer.wrap(scratch, 0, PAYLOAD_SIZE);
+        payload.put(event.getType().getCode())
+                .putLong(event.getTimestamp())
+                .putLong(event.getEntityId())
+                .putLong(event.getOwnerId());
+        crc.reset();
+        crc.update(scratch, 0, PAYLOAD_SIZE);
+        buffer.put(scratch, 0, PAYLOAD_SIZE).putInt((int) crc.getValue());
+    }
+
+    /**
+     * Bytes of a segment holding the header and the intact records
+     */
+    static int writtenLength(ByteBuffer segment) {
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(HEADER_SIZE);
+        byte[] scratch = new byte[PAYLOAD_SIZE];
+        CRC32 crc = new CRC32();
+        int length = HEADER_SIZE;
+        while (readRecord(buffer, scratch, crc) != null) {
+            length = buffer.position();
+        }
+        return length;
+    }
+
+    /**
+     * Next record at the buffer's position, or null at the end of the written data
+     */
+    static AuditEvent readRecord(ByteBuffer buffer, byte[] scratch, CRC32 crc) {
+        if (buffer.remaining() < RECORD_SIZE || buffer.get(buffer.position()) == 0) {
+            return null;
+        }
+        buffer.get(scratch, 0, PAYLOAD_SIZE);
+        int storedCrc = buffer.getInt();
+        crc.reset();
+        crc.update(scratch, 0, PAYLOAD_SIZE);
+        if ((int) crc.getValue() != storedCrc) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.wrap(scratch, 0, PAYLOAD_SIZE);
+        AuditEvent.Type type = AuditEvent.Type.fromCode(payload.get());
+        return new AuditEvent(type, payload.getLong(), payload.getLong(), payload.getLong());
+    }
+}
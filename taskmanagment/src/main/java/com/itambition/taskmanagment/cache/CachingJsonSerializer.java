@@ -0,0 +1,99 @@
+package com.itambition.taskmanagment.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.function.Function;
+
+/**
+ * Wraps the default bean serializer of an entity type: a cached fragment is
+ * written as a raw value, otherwise the entity is rendered once by the
+ * default serializer and stored. Nested cached entities (a task's user) are
+ * spliced into the fragment the same way. Entities that weren't loaded from
+ * the database, such as the body of a write echoed back, bypass the cache.
+ */
+class CachingJsonSerializer<T> extends JsonSerializer<T> implements ContextualSerializer, ResolvableSerializer {
+
+    private static final JsonFactory FRAGMENT_FACTORY = new JsonFactory();
+
+    private final Class<T> type;
+    private final Function<T, Object> cacheKey;
+    private final JsonSerializer<T> delegate;
+    private final JsonFragmentCache cache;
+
+    CachingJsonSerializer(Class<T> type, Function<T, Object> cacheKey, JsonSerializer<T> delegate, JsonFragmentCache cache) {
+        this.type = type;
+        this.cacheKey = cacheKey;
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Object id = cacheKey.apply(value);
+        Long loadedAt = cache.loadedAtGeneration(value);
+        if (id == null || loadedAt == null) {
+            delegate.serialize(value, gen, provider);
+            return;
+        }
+        SerializedString fragment = cache.get(type, id);
+        if (fragment == null) {
+            StringWriter json = new StringWriter();
+            try (JsonGenerator fragmentGen = FRAGMENT_FACTORY.createGenerator(json)) {
+                delegate.serialize(value, fragmentGen, provider);
+            }
+            fragment = cache.put(type, id, json.toString(), loadedAt);
+        }
+        gen.writeRawValue(fragment);
+    }
+
+    @Override
+    public void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        delegate.serializeWithType(value, gen, provider, typeSer);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, T value) {
+        return delegate.isEmpty(provider, value);
+    }
+
+    @Override
+    public Class<T> handledType() {
+        return type;
+    }
+
+    @Override
+    public boolean usesObjectId() {
+        return delegate.usesObjectId();
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) delegate).resolve(provider);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (!(delegate instanceof ContextualSerializer)) {
+            return this;
+        }
+        JsonSerializer<T> contextual =
+                (JsonSerializer<T>) ((ContextualSerializer) delegate).createContextual(provider, property);
+        return contextual == delegate ? this : new CachingJsonSerializer<>(type, cacheKey, contextual, cache);
+    }
+}
@@ -0,0 +1,48 @@
+package com.itambition.taskmanagment.cache;
+
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Stamps every {@link Task} and {@link User} Hibernate loads with the cache
+ * generation, so only database state is cached and staleness is judged from
+ * the load, not from when the entity is rendered
+ */
+@Component
+public class EntityLoadListener implements PostLoadEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JsonFragmentCache cache;
+
+    @PostConstruct
+    public void register() {
+        if (!cache.isEnabled()) {
+            return;
+        }
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Task || entity instanceof User) {
+            cache.markLoaded(entity);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.itambition.taskmanagment.cache;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of pre-encoded JSON fragments of entities, keyed by entity type and id.
+ *
+ * Entries are invalidated by the services on every mutation. Only entities
+ * loaded from the database are cached, stamped with the generation at load
+ * time, so a fragment is never stored from a request body or from an entity
+ * read before a concurrent invalidation. Rows read while an update is still
+ * uncommitted, or changed through another instance, can still be served
+ * until they expire, so the TTL bounds staleness. Memory is bounded by an approximate byte
+ * budget with oldest-first eviction.
+ *
+ * Fragments are kept on heap: each one is a single long-lived array, which
+ * the GC handles cheaply, and direct buffers cannot be freed explicitly.
+ */
+@Component
+public class JsonFragmentCache implements MeterBinder {
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    // One node per current entry, oldest first; guarded by itself, like every change to entries
+    private final LinkedHashMap<Key, Entry> insertionOrder = new LinkedHashMap<>();
+    // Entities don't override equals, so this is keyed by identity; entries go with the entity
+    private final Map<Object, Long> loadedAtGeneration = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    public JsonFragmentCache(@Value("${taskmanagment.json-cache.enabled:true}") boolean enabled,
+                             @Value("${taskmanagment.json-cache.max-bytes:16777216}") long maxBytes,
+                             @Value("${taskmanagment.json-cache.ttl-ms:60000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached fragment, or null on a miss
+     */
+    public SerializedString get(Class<?> type, Object id) {
+        Key key = new Key(type, id);
+        Entry entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.createdAt > ttlNanos) {
+            if (entry != null) {
+                remove(key, entry);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.json;
+    }
+
+    /**
+     * Invalidation counter; read it when the entity is loaded and pass it to {@link #put}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Remember the current generation for an entity just loaded from the database
+     */
+    public void markLoaded(Object entity) {
+        loadedAtGeneration.put(entity, generation.get());
+    }
+
+    /**
+     * The generation at which the entity was loaded, or null if it didn't come
+     * from the database (a request body, a lazy proxy)
+     */
+    public Long loadedAtGeneration(Object entity) {
+        return loadedAtGeneration.get(entity);
+    }
+
+    /**
+     * Store a fragment unless an invalidation happened since it was rendered,
+     * and return it pre-encoded
+     */
+    public SerializedString put(Class<?> type, Object id, String json, long renderedAtGeneration) {
+        SerializedString fragment = new SerializedString(json);
+        // Encode once now so every hit writes the cached UTF-8 bytes
+        int size = fragment.asUnquotedUTF8().length + json.length();
+        if (size > maxBytes) {
+            return fragment;
+        }
+        Key key = new Key(type, id);
+        Entry entry = new Entry(fragment, size);
+        synchronized (insertionOrder) {
+            // Checked under the lock that invalidation removes entries with
+            if (generation.get() != renderedAtGeneration) {
+                return fragment;
+            }
+            Entry previous = entries.put(key, entry);
+            // Re-inserting moves the key to the young end
+            insertionOrder.remove(key);
+            insertionOrder.put(key, entry);
+            bytes.addAndGet(previous == null ? size : size - previous.size);
+            evictOverBudget();
+        }
+        return fragment;
+    }
+
+    public void invalidate(Class<?> type, Object id) {
+        generation.incrementAndGet();
+        remove(new Key(type, id));
+    }
+
+    public void invalidateAll(Class<?> type, Collection<?> ids) {
+        generation.incrementAndGet();
+        for (Object id : ids) {
+            remove(new Key(type, id));
+        }
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<Key, Entry>> oldestFirst = insertionOrder.entrySet().iterator();
+        while (bytes.get() > maxBytes && oldestFirst.hasNext()) {
+            Map.Entry<Key, Entry> oldest = oldestFirst.next();
+            oldestFirst.remove();
+            entries.remove(oldest.getKey());
+            bytes.addAndGet(-oldest.getValue().size);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Key key) {
+        synchronized (insertionOrder) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                insertionOrder.remove(key);
+                bytes.addAndGet(-removed.size);
+            }
+        }
+    }
+
+    // Expired entry, unless it was replaced meanwhile
+    private void remove(Key key, Entry expired) {
+        synchronized (insertionOrder) {
+            if (entries.remove(key, expired)) {
+                insertionOrder.remove(key);
+                bytes.addAndGet(-expired.size);
+            }
+        }
+    }
+
+    /**
+     * Number of entries tracked for eviction
+     */
+    int trackedEntries() {
+        synchronized (insertionOrder) {
+            return insertionOrder.size();
+        }
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("taskmanagment.json.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("taskmanagment.json.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("taskmanagment.json.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("taskmanagment.json.cache.hit.ratio", this, JsonFragmentCache::getHitRatio).register(registry);
+        Gauge.builder("taskmanagment.json.cache.size", bytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("taskmanagment.json.cache.entries", entries, ConcurrentMap::size).register(registry);
+    }
+
+    private static final class Key {
+        final Class<?> type;
+        final Object id;
+
+        Key(Class<?> type, Object id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        final SerializedString json;
+        final int size;
+        final long createdAt = System.nanoTime();
+
+        Entry(SerializedString json, int size) {
+            this.json = json;
+            this.size = size;
+        }
+    }
+}
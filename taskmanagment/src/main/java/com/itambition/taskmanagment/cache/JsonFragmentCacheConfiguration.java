@@ -0,0 +1,48 @@
+package com.itambition.taskmanagment.cache;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the caching serializers for {@link Task} and {@link User} with
+ * the application's ObjectMapper
+ */
+@Configuration
+public class JsonFragmentCacheConfiguration {
+
+    @Bean
+    public Module jsonFragmentCacheModule(JsonFragmentCache cache) {
+        SimpleModule module = new SimpleModule("JsonFragmentCache");
+        if (!cache.isEnabled()) {
+            return module;
+        }
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                Class<?> beanClass = beanDesc.getBeanClass();
+                if (beanClass == Task.class) {
+                    // Archived tasks share ids with the live rows they were moved from
+                    return new CachingJsonSerializer<>(Task.class,
+                            task -> task.isArchived() ? null : task.getId(),
+                            (JsonSerializer<Task>) serializer, cache);
+                }
+                if (beanClass == User.class) {
+                    return new CachingJsonSerializer<>(User.class, User::getId,
+                            (JsonSerializer<User>) serializer, cache);
+                }
+                return serializer;
+            }
+        });
+        return module;
+    }
+}
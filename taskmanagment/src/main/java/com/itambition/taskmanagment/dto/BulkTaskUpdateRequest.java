@@ -0,0 +1,141 @@
+package com.itambition.taskmanagment.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Body of POST /api/tasks/bulk-update: which tasks to change and how.
+ * <pre>
+ * {"filter": {"userId": 3, "deadlineFrom": "2024-01-01T00:00:00"},
+ *  "operation": {"type": "SHIFT_DEADLINE", "duration": "P7D"}}
+ * </pre>
+ */
+public class BulkTaskUpdateRequest {
+
+    public enum OperationType {
+        SET_OWNER, SHIFT_DEADLINE, SET_FIELD
+    }
+
+    private Filter filter;
+    private Operation operation;
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Tasks matching all given criteria; deadlineTo is exclusive
+     */
+    public static class Filter {
+
+        private Long userId;
+        private List<Long> ids;
+        private LocalDateTime deadlineFrom;
+        private LocalDateTime deadlineTo;
+
+        @JsonIgnore
+        public boolean isEmpty() {
+            return userId == null && (ids == null || ids.isEmpty()) && deadlineFrom == null && deadlineTo == null;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        public LocalDateTime getDeadlineFrom() {
+            return deadlineFrom;
+        }
+
+        public void setDeadlineFrom(LocalDateTime deadlineFrom) {
+            this.deadlineFrom = deadlineFrom;
+        }
+
+        public LocalDateTime getDeadlineTo() {
+            return deadlineTo;
+        }
+
+        public void setDeadlineTo(LocalDateTime deadlineTo) {
+            this.deadlineTo = deadlineTo;
+        }
+    }
+
+    /**
+     * SET_OWNER uses userId, SHIFT_DEADLINE uses duration,
+     * SET_FIELD uses field (name, description or deadline) and value
+     */
+    public static class Operation {
+
+        private OperationType type;
+        private Long userId;
+        private Duration duration;
+        private String field;
+        private String value;
+
+        public OperationType getType() {
+            return type;
+        }
+
+        public void setType(OperationType type) {
+            this.type = type;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Duration duration) {
+            this.duration = duration;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
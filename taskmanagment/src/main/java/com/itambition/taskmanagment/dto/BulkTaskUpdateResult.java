@@ -0,0 +1,23 @@
+package com.itambition.taskmanagment.dto;
+
+/**
+ * Outcome of a bulk task update
+ */
+public class BulkTaskUpdateResult {
+
+    private final long updated;
+    private final int chunks;
+
+    public BulkTaskUpdateResult(long updated, int chunks) {
+        this.updated = updated;
+        this.chunks = chunks;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+}
@@ -0,0 +1,25 @@
+package com.itambition.taskmanagment.dto;
+
+import java.util.List;
+
+/**
+ * Entities loaded by a list of ids, in the requested order, and the ids that were not found
+ */
+public class MultiGetResult<T> {
+
+    private final List<T> found;
+    private final List<Long> missing;
+
+    public MultiGetResult(List<T> found, List<Long> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<T> getFound() {
+        return found;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,47 @@
+package com.itambition.taskmanagment.dto;
+
+import com.itambition.taskmanagment.models.Task;
+
+import java.util.List;
+
+/**
+ * Delta of a user's tasks since a watermark: current state of the tasks
+ * changed, ids of the tasks that left the list, and the watermark to pass
+ * as "since" next time. When the tombstones after "since" have been
+ * compacted away, resyncRequired is set and the client must start over
+ * from 0
+ */
+public class TaskChanges {
+
+    private final List<Task> changed;
+    private final List<Long> deleted;
+    private final long watermark;
+    private final boolean resyncRequired;
+
+    public TaskChanges(List<Task> changed, List<Long> deleted, long watermark) {
+        this(changed, deleted, watermark, false);
+    }
+
+    public TaskChanges(List<Task> changed, List<Long> deleted, long watermark, boolean resyncRequired) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.resyncRequired = resyncRequired;
+    }
+
+    public List<Task> getChanged() {
+        return changed;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+}
@@ -0,0 +1,85 @@
+package com.itambition.taskmanagment.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criteria of the filtered task search. All criteria are optional and
+ * combined with AND; deadlineTo is exclusive. Results are ordered by
+ * deadline, then id, and continue after (afterDeadline, afterId) when a
+ * cursor is given. Tasks without a deadline never match.
+ */
+public class TaskSearchCriteria {
+
+    private Long userId;
+    private LocalDateTime deadlineFrom;
+    private LocalDateTime deadlineTo;
+    private String text;
+    private boolean descending;
+    private LocalDateTime afterDeadline;
+    private Long afterId;
+    private int limit = 20;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getDeadlineFrom() {
+        return deadlineFrom;
+    }
+
+    public void setDeadlineFrom(LocalDateTime deadlineFrom) {
+        this.deadlineFrom = deadlineFrom;
+    }
+
+    public LocalDateTime getDeadlineTo() {
+        return deadlineTo;
+    }
+
+    public void setDeadlineTo(LocalDateTime deadlineTo) {
+        this.deadlineTo = deadlineTo;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public LocalDateTime getAfterDeadline() {
+        return afterDeadline;
+    }
+
+    public void setAfterDeadline(LocalDateTime afterDeadline) {
+        this.afterDeadline = afterDeadline;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,28 @@
+package com.itambition.taskmanagment.dto;
+
+import com.itambition.taskmanagment.models.Task;
+
+import java.util.List;
+
+/**
+ * One page of the filtered task search and the cursor of the next page,
+ * null on the last page
+ */
+public class TaskSearchResult {
+
+    private final List<Task> content;
+    private final String next;
+
+    public TaskSearchResult(List<Task> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<Task> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
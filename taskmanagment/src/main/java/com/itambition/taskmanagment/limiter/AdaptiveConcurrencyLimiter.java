@@ -0,0 +1,141 @@
+package com.itambition.taskmanagment.limiter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit learned from observed latency.
+ *
+ * Each route has its own no-load latency, the minimum seen over a window of
+ * its samples, so an endpoint that is always slow is judged against itself
+ * rather than against the fastest GET. A sample slower than {@code tolerance}
+ * times its route's baseline (and above an absolute floor), or a request the
+ * server reported as overloaded, is a congestion signal. The limit shrinks
+ * multiplicatively at most once per congestion event: signals from requests
+ * that started before the last backoff ran under the old limit and are
+ * ignored. A fast sample while the limit is at least half used grows it by
+ * 1/limit, i.e. by about one per limit's worth of requests.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long minThresholdNanos;
+    private final double backoffRatio;
+    private final int baselineWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+
+    // Guarded by this
+    private final Map<String, Baseline> baselines = new HashMap<>();
+    private boolean backedOff;
+    private long lastBackoffNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      long minThresholdMillis, double backoffRatio, int baselineWindow) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.minThresholdNanos = TimeUnit.MILLISECONDS.toNanos(minThresholdMillis);
+        this.backoffRatio = backoffRatio;
+        this.baselineWindow = baselineWindow;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a slot if the limit allows; every successful call must be paired with {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return a slot and feed the request's latency into the limit
+     *
+     * @param route      the endpoint the request was routed to; latency is judged per route
+     * @param startNanos {@link System#nanoTime()} when the request was admitted
+     * @param overloaded the server reported overload (503, 504), as opposed to an application error
+     */
+    public void release(String route, long startNanos, long latencyNanos, boolean overloaded) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(route, startNanos, latencyNanos, inFlightBefore, overloaded);
+    }
+
+    private synchronized void onSample(String route, long startNanos, long latencyNanos, int inFlightBefore,
+                                       boolean overloaded) {
+        Baseline baseline = baselines.computeIfAbsent(route, key -> new Baseline());
+        baseline.add(latencyNanos);
+
+        long threshold = Math.max((long) (baseline.nanos * tolerance), minThresholdNanos);
+        double current = limit;
+        if (overloaded || latencyNanos > threshold) {
+            // Requests admitted before the last backoff already paid for this congestion
+            if (!backedOff || startNanos - lastBackoffNanos >= 0) {
+                limit = Math.max(minLimit, current * backoffRatio);
+                backedOff = true;
+                lastBackoffNanos = System.nanoTime();
+            }
+        } else if (inFlightBefore * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1.0 / current);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * No-load latency of one route; guarded by the limiter
+     */
+    private final class Baseline {
+        long nanos;
+        long windowMinNanos = Long.MAX_VALUE;
+        int windowSamples;
+
+        void add(long latencyNanos) {
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+            if (nanos == 0 || latencyNanos < nanos) {
+                nanos = latencyNanos;
+            }
+            if (++windowSamples >= baselineWindow) {
+                // Let the baseline follow a permanently slower backend
+                nanos = windowMinNanos;
+                windowMinNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.itambition.taskmanagment.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sheds /api requests over the adaptive concurrency limit with an immediate
+ * 503 instead of letting them queue for a database connection. Latency is
+ * attributed to the handler's URL pattern; only 503 and 504 responses count
+ * as overload, not application errors.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    // Requests that reached no handler, e.g. 404s, share one baseline
+    static final String UNMAPPED_ROUTE = "unmapped";
+
+    private final boolean enabled;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(@Value("${taskmanagment.limiter.enabled:true}") boolean enabled,
+                                  @Value("${taskmanagment.limiter.initial-limit:20}") int initialLimit,
+                                  @Value("${taskmanagment.limiter.min-limit:5}") int minLimit,
+                                  @Value("${taskmanagment.limiter.max-limit:200}") int maxLimit,
+                                  @Value("${taskmanagment.limiter.latency-tolerance:2.0}") double tolerance,
+                                  @Value("${taskmanagment.limiter.min-latency-threshold-ms:50}") long minThresholdMillis,
+                                  @Value("${taskmanagment.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${taskmanagment.limiter.baseline-window:500}") int baselineWindow) {
+        this.enabled = enabled;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance,
+                minThresholdMillis, backoffRatio, baselineWindow);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            filterChain.doFilter(request, response);
+            overloaded = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value();
+        } finally {
+            limiter.release(route(request), start, System.nanoTime() - start, overloaded);
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? UNMAPPED_ROUTE : request.getMethod() + " " + pattern;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("taskmanagment.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("taskmanagment.limiter.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+        FunctionCounter.builder("taskmanagment.limiter.accepted", limiter, AdaptiveConcurrencyLimiter::getAccepted)
+                .register(registry);
+        FunctionCounter.builder("taskmanagment.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("Requests shed with 503")
+                .register(registry);
+    }
+}
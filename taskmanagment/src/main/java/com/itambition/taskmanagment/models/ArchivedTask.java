@@ -0,0 +1,93 @@
+package com.itambition.taskmanagment.models;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+
+
+@Entity
+@Table(name = "tasks_archive")
+public class ArchivedTask {
+
+    // Keeps the id the task had in the tasks table
+    @Id
+    private Long id;
+
+    @Column(length = 100, nullable = false)
+    private String name;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    private LocalDateTime deadline;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * The archived row as a read-only task, flagged as archived
+     */
+    public Task toTask() {
+        Task task = new Task();
+        task.setId(id);
+        task.setName(name);
+        task.setDescription(description);
+        task.setDeadline(deadline);
+        task.setUser(user);
+        task.setArchived(true);
+        return task;
+    }
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(LocalDateTime deadline) {
+        this.deadline = deadline;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -0,0 +1,45 @@
+package com.itambition.taskmanagment.models;
+import javax.persistence.*;
+
+
+
+/**
+ * Named counter handing out change versions
+ */
+@Entity
+@Table(name = "change_counters")
+public class ChangeCounter {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private long lastVersion;
+
+    public ChangeCounter() {
+    }
+
+    public ChangeCounter(String name, long lastVersion) {
+        this.name = name;
+        this.lastVersion = lastVersion;
+    }
+
+    // Getters and setters
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastVersion() {
+        return lastVersion;
+    }
+
+    public void setLastVersion(long lastVersion) {
+        this.lastVersion = lastVersion;
+    }
+}
@@ -24,6 +24,29 @@ public class Task {
     @JoinColumn(name = "user_id", foreignKey = @ForeignKey(name = "fk_user"))
     private User user;
 
+    // Version of the last write, from the tasks change counter; drives delta sync
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    // Set on tasks read back from tasks_archive
+    @Transient
+    private boolean archived;
+
+    /**
+     * A detached copy with the same field values, owner included
+     */
+    public Task copy() {
+        Task task = new Task();
+        task.setId(id);
+        task.setName(name);
+        task.setDescription(description);
+        task.setDeadline(deadline);
+        task.setUser(user == null ? null : user.copy());
+        task.setChangeVersion(changeVersion);
+        task.setArchived(archived);
+        return task;
+    }
+
     // Getters and setters
 
     public Long getId() {
@@ -65,4 +88,20 @@ public class Task {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public void setChangeVersion(long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
 }
@@ -0,0 +1,81 @@
+package com.itambition.taskmanagment.models;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+
+
+/**
+ * Marks a task that left a user's task list (deleted, archived or moved to
+ * another owner) at a change version, for delta sync
+ */
+@Entity
+@Table(name = "task_tombstones")
+public class TaskTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private long changeVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public TaskTombstone() {
+    }
+
+    public TaskTombstone(Long taskId, Long userId, long changeVersion, LocalDateTime deletedAt) {
+        this.taskId = taskId;
+        this.userId = userId;
+        this.changeVersion = changeVersion;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public void setChangeVersion(long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
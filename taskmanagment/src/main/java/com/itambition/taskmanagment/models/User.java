@@ -21,6 +21,19 @@ public class User {
     @Column(length = 50)
     private String role = "ROLE_USER";
 
+    /**
+     * A detached copy with the same field values
+     */
+    public User copy() {
+        User user = new User();
+        user.setId(id);
+        user.setUserName(userName);
+        user.setPassword(password);
+        user.setEmail(email);
+        user.setRole(role);
+        return user;
+    }
+
     // Getters and setters
 
     public Long getId() {
@@ -0,0 +1,54 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Adds Flight Recorder events around every call of the {@code @Service} and
+ * Spring Data repository beans. Existing proxies (repositories, transactional
+ * services) get the advice as their outermost interceptor; other services are
+ * wrapped in a class-based proxy.
+ */
+@Component
+public class FlightRecorderEventsPostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+    private boolean enabled = true;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        enabled = environment.getProperty("taskmanagment.jfr.events-enabled", Boolean.class, enabled);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof Repository) {
+            return advise(bean, new OperationEventInterceptor(beanName, RepositoryCallEvent::new));
+        }
+        if (AnnotationUtils.findAnnotation(ClassUtils.getUserClass(bean), Service.class) != null) {
+            return advise(bean, new OperationEventInterceptor(beanName, ServiceCallEvent::new));
+        }
+        return bean;
+    }
+
+    private static Object advise(Object bean, OperationEventInterceptor interceptor) {
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+}
@@ -0,0 +1,202 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes a Flight Recording per endpoint: request latency, JDBC
+ * statements, time spent in repository calls and TLAB allocation.
+ * Repository calls and allocations are attributed to the request running
+ * on the same thread at that time. Statement counts and allocation are only
+ * complete in recordings made with taskmanagment-profiling.jfc.
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.itambition.taskmanagment.monitoring.FlightRecordingAnalyzer \
+ *      org.springframework.boot.loader.PropertiesLauncher recording.jfr
+ * </pre>
+ */
+public class FlightRecordingAnalyzer {
+
+    private static final int TOP_OPERATIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: FlightRecordingAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        print(analyze(Paths.get(args[0])), System.out);
+    }
+
+    /**
+     * Per-endpoint summaries keyed by "METHOD endpoint"
+     */
+    public static Map<String, EndpointSummary> analyze(Path recording) throws IOException {
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recording);
+
+        Map<Long, List<Request>> requestsByThread = new HashMap<>();
+        Map<String, EndpointSummary> summaries = new TreeMap<>();
+        for (RecordedEvent event : events) {
+            if (!event.getEventType().getName().equals(RequestEvent.NAME) || event.getThread() == null) {
+                continue;
+            }
+            String key = event.getString("method") + " " + event.getString("endpoint");
+            EndpointSummary summary = summaries.computeIfAbsent(key, EndpointSummary::new);
+            summary.durations.add(event.getDuration().toNanos());
+            summary.statements += event.getInt("statements");
+            requestsByThread.computeIfAbsent(event.getThread().getJavaThreadId(), id -> new ArrayList<>())
+                    .add(new Request(event.getStartTime(), event.getEndTime(), summary));
+        }
+        for (List<Request> requests : requestsByThread.values()) {
+            requests.sort(Comparator.comparing(request -> request.start));
+        }
+
+        for (RecordedEvent event : events) {
+            String type = event.getEventType().getName();
+            boolean repositoryCall = type.equals(RepositoryCallEvent.NAME);
+            boolean allocation = type.equals("jdk.ObjectAllocationInNewTLAB")
+                    || type.equals("jdk.ObjectAllocationOutsideTLAB");
+            if (!repositoryCall && !allocation) {
+                continue;
+            }
+            Request request = enclosing(requestsByThread, event.getThread(), event.getStartTime());
+            if (request == null) {
+                continue;
+            }
+            EndpointSummary summary = request.summary;
+            if (repositoryCall) {
+                long nanos = event.getDuration().toNanos();
+                summary.repositoryNanos += nanos;
+                long[] operation = summary.operations.computeIfAbsent(event.getString("operation"), op -> new long[2]);
+                operation[0]++;
+                operation[1] += nanos;
+            } else if (type.equals("jdk.ObjectAllocationInNewTLAB")) {
+                summary.allocatedBytes += event.getLong("tlabSize");
+            } else {
+                summary.allocatedBytes += event.getLong("allocationSize");
+            }
+        }
+        return summaries;
+    }
+
+    // The request on the thread whose interval contains the instant
+    private static Request enclosing(Map<Long, List<Request>> requestsByThread, RecordedThread thread, Instant at) {
+        if (thread == null) {
+            return null;
+        }
+        List<Request> requests = requestsByThread.get(thread.getJavaThreadId());
+        if (requests == null) {
+            return null;
+        }
+        int low = 0;
+        int high = requests.size() - 1;
+        Request candidate = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (requests.get(mid).start.isAfter(at)) {
+                high = mid - 1;
+            } else {
+                candidate = requests.get(mid);
+                low = mid + 1;
+            }
+        }
+        return candidate != null && !candidate.end.isBefore(at) ? candidate : null;
+    }
+
+    static void print(Map<String, EndpointSummary> summaries, PrintStream out) {
+        List<EndpointSummary> ordered = new ArrayList<>(summaries.values());
+        ordered.sort(Comparator.comparingLong(EndpointSummary::getTotalNanos).reversed());
+        out.printf("%-45s %8s %9s %9s %9s %10s %8s %11s%n",
+                "endpoint", "requests", "avg ms", "p95 ms", "max ms", "stmts/req", "repo %", "alloc MB");
+        for (EndpointSummary summary : ordered) {
+            out.printf("%-45s %8d %9.2f %9.2f %9.2f %10.1f %8.1f %11.1f%n",
+                    summary.getEndpoint(), summary.getRequests(),
+                    millis(summary.getTotalNanos() / (double) summary.getRequests()),
+                    millis(summary.percentileNanos(0.95)), millis(summary.percentileNanos(1.0)),
+                    summary.statements / (double) summary.getRequests(),
+                    summary.getTotalNanos() == 0 ? 0.0 : 100.0 * summary.repositoryNanos / summary.getTotalNanos(),
+                    summary.allocatedBytes / (1024.0 * 1024.0));
+            summary.operations.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                    .limit(TOP_OPERATIONS)
+                    .forEach(op -> out.printf("    %-41s %8d calls %9.2f ms%n",
+                            op.getKey(), op.getValue()[0], millis(op.getValue()[1])));
+        }
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Request {
+        final Instant start;
+        final Instant end;
+        final EndpointSummary summary;
+
+        Request(Instant start, Instant end, EndpointSummary summary) {
+            this.start = start;
+            this.end = end;
+            this.summary = summary;
+        }
+    }
+
+    public static final class EndpointSummary {
+        private final String endpoint;
+        private final List<Long> durations = new ArrayList<>();
+        private final Map<String, long[]> operations = new HashMap<>();
+        private long statements;
+        private long repositoryNanos;
+        private long allocatedBytes;
+
+        EndpointSummary(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getRequests() {
+            return durations.size();
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long duration : durations) {
+                total += duration;
+            }
+            return total;
+        }
+
+        public long percentileNanos(double percentile) {
+            List<Long> sorted = new ArrayList<>(durations);
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index));
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getRepositoryNanos() {
+            return repositoryNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
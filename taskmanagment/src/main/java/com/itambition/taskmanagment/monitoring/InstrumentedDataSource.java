@@ -0,0 +1,213 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataSource proxy that counts statements, fetched rows and execution time
+ * into the thread's {@link QueryStats}, and logs statements slower than the
+ * configured threshold. Bind values are never logged, only their types.
+ *
+ * Closing it closes the target, so the pool it replaces as a bean is still
+ * shut down with the context.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    private final long slowQueryNanos;
+
+    public InstrumentedDataSource(DataSource targetDataSource, long slowQueryMillis) {
+        super(targetDataSource);
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) target).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to close " + target, e);
+            }
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private void recordExecution(String sql, Map<Integer, String> params, long nanos) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.recordStatement(nanos);
+        }
+        if (nanos >= slowQueryNanos) {
+            log.warn("Slow statement ({} ms): {} params={}", TimeUnit.NANOSECONDS.toMillis(nanos), sql, params);
+        }
+    }
+
+    /**
+     * Common JDBC wrapper plumbing: identity, unwrap and exception unwrapping
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return handle(proxy, method, args);
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            Class<?> returnType = method.getReturnType();
+            if (result != null && Statement.class.isAssignableFrom(returnType)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return proxy(returnType, new StatementHandler(result, sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler extends Handler {
+
+        private final String preparedSql;
+        private final Map<Integer, String> params = new TreeMap<>();
+
+        StatementHandler(Object target, String preparedSql) {
+            super(target);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = call(method, args);
+                } finally {
+                    recordExecution(sql, params, System.nanoTime() - start);
+                }
+                return result instanceof ResultSet ? countRows((ResultSet) result) : result;
+            }
+            if (name.equals("getResultSet")) {
+                Object result = call(method, args);
+                return result instanceof ResultSet ? countRows((ResultSet) result) : result;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                params.put((Integer) args[0], redact(name, args[1]));
+            } else if (name.equals("clearParameters")) {
+                params.clear();
+            }
+            return call(method, args);
+        }
+
+        private String redact(String setter, Object value) {
+            if (setter.equals("setNull") || value == null) {
+                return "NULL";
+            }
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+
+        private ResultSet countRows(ResultSet resultSet) {
+            QueryStats stats = QueryStats.current();
+            if (stats == null) {
+                return resultSet;
+            }
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, stats));
+        }
+    }
+
+    private static class ResultSetHandler extends Handler {
+
+        private final QueryStats stats;
+
+        ResultSetHandler(ResultSet target, QueryStats stats) {
+            super(target);
+            this.stats = stats;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                stats.recordRow();
+            }
+            return result;
+        }
+    }
+}
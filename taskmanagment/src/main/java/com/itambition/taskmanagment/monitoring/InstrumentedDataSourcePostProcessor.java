@@ -0,0 +1,30 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every DataSource bean in an {@link InstrumentedDataSource}
+ */
+@Component
+public class InstrumentedDataSourcePostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+    private long slowQueryMillis = 500;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        slowQueryMillis = environment.getProperty("taskmanagment.jdbc.slow-query-ms", Long.class, slowQueryMillis);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource((DataSource) bean, slowQueryMillis);
+        }
+        return bean;
+    }
+}
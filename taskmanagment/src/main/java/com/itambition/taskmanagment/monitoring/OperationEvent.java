@@ -0,0 +1,33 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Common fields of the service and repository call events.
+ *
+ * Arguments are recorded by shape only (types and sizes), never by value.
+ */
+@Category({"Taskmanagment"})
+abstract class OperationEvent extends Event {
+
+    @Label("Operation")
+    @Description("Bean name and method, e.g. tasksServices.searchByDescription")
+    String operation;
+
+    @Label("Arguments")
+    @Description("Argument types and sizes")
+    String arguments;
+
+    @Label("Results")
+    @Description("Returned elements; 1 or 0 for a single entity, affected rows for updates, -1 if unknown")
+    long results;
+
+    @Label("JDBC Statements")
+    int statements;
+
+    @Label("JDBC Rows")
+    long rows;
+}
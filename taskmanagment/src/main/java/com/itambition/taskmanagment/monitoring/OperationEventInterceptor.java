@@ -0,0 +1,106 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Emits an {@link OperationEvent} around each call of the advised bean.
+ *
+ * When the event type is disabled the call proceeds after a single
+ * enabled check; the event object does not escape and is eliminated by the
+ * JIT. Argument shapes and result counts are only computed for events that
+ * will be committed.
+ */
+class OperationEventInterceptor implements MethodInterceptor {
+
+    private final String beanName;
+    private final Supplier<OperationEvent> eventFactory;
+
+    OperationEventInterceptor(String beanName, Supplier<OperationEvent> eventFactory) {
+        this.beanName = beanName;
+        this.eventFactory = eventFactory;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        OperationEvent event = eventFactory.get();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        QueryStats stats = QueryStats.current();
+        int statementsBefore = stats == null ? 0 : stats.getStatementCount();
+        long rowsBefore = stats == null ? 0 : stats.getRowCount();
+        Object result = null;
+        event.begin();
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = beanName + "." + invocation.getMethod().getName();
+                event.arguments = shape(invocation.getArguments());
+                event.results = count(result);
+                if (stats != null) {
+                    event.statements = stats.getStatementCount() - statementsBefore;
+                    event.rows = stats.getRowCount() - rowsBefore;
+                }
+                event.commit();
+            }
+        }
+    }
+
+    static String shape(Object[] arguments) {
+        StringBuilder shape = new StringBuilder();
+        for (Object argument : arguments) {
+            if (shape.length() > 0) {
+                shape.append(", ");
+            }
+            if (argument == null) {
+                shape.append("null");
+                continue;
+            }
+            shape.append(argument.getClass().getSimpleName());
+            if (argument instanceof Collection) {
+                shape.append('[').append(((Collection<?>) argument).size()).append(']');
+            } else if (argument instanceof CharSequence) {
+                shape.append('[').append(((CharSequence) argument).length()).append(']');
+            } else if (argument instanceof Pageable && ((Pageable) argument).isPaged()) {
+                shape.append('[').append(((Pageable) argument).getPageSize()).append(']');
+            }
+        }
+        return shape.toString();
+    }
+
+    static long count(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof Boolean || result instanceof CharSequence) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.itambition.taskmanagment.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC statistics of one unit of work (normally one HTTP request).
+ *
+ * A collector is bound to the current thread between {@link #begin()} and
+ * {@link #end()}; statements executed through {@link InstrumentedDataSource}
+ * while it is bound are counted against it.
+ */
+public final class QueryStats {
+
+    /** Request attribute under which {@link QueryStatsFilter} exposes the collector */
+    public static final String REQUEST_ATTRIBUTE = QueryStats.class.getName();
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long rowCount;
+    private long elapsedNanos;
+
+    /**
+     * Bind a fresh collector to the current thread
+     */
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * The collector bound to the current thread, or null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Unbind the collector from the current thread
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void recordStatement(long nanos) {
+        statementCount++;
+        elapsedNanos += nanos;
+    }
+
+    void recordRow() {
+        rowCount++;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return statementCount + " statements, " + rowCount + " rows, " + getElapsedMillis() + " ms";
+    }
+}
@@ -0,0 +1,63 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Collects {@link QueryStats} for each HTTP request, exposes them as a request
+ * attribute and logs requests issuing more statements than the threshold.
+ * Also emits a {@link RequestEvent} per request to Flight Recorder.
+ */
+@Component
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    @Value("${taskmanagment.jdbc.request-statement-warn-threshold:20}")
+    private int statementWarnThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        request.setAttribute(QueryStats.REQUEST_ATTRIBUTE, stats);
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats.end();
+            event.end();
+            if (event.shouldCommit()) {
+                commit(event, request, response, stats);
+            }
+            if (stats.getStatementCount() > statementWarnThreshold) {
+                log.warn("{} {} issued {}", request.getMethod(), request.getRequestURI(), stats);
+            } else if (log.isDebugEnabled()) {
+                log.debug("{} {} issued {}", request.getMethod(), request.getRequestURI(), stats);
+            }
+        }
+    }
+
+    private static void commit(RequestEvent event, HttpServletRequest request, HttpServletResponse response,
+                               QueryStats stats) {
+        // The mapped pattern (e.g. /api/users/{id}) groups requests per endpoint
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        event.method = request.getMethod();
+        event.endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+        event.status = response.getStatus();
+        event.statements = stats.getStatementCount();
+        event.rows = stats.getRowCount();
+        event.commit();
+    }
+}
@@ -0,0 +1,11 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+class RepositoryCallEvent extends OperationEvent {
+
+    static final String NAME = "taskmanagment.RepositoryCall";
+}
@@ -0,0 +1,34 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One HTTP request, from entering {@link QueryStatsFilter} to the response
+ */
+@Name(RequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"Taskmanagment"})
+@StackTrace(false)
+class RequestEvent extends Event {
+
+    static final String NAME = "taskmanagment.Request";
+
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status")
+    int status;
+
+    @Label("JDBC Statements")
+    int statements;
+
+    @Label("JDBC Rows")
+    long rows;
+}
@@ -0,0 +1,13 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@StackTrace(false)
+class ServiceCallEvent extends OperationEvent {
+
+    static final String NAME = "taskmanagment.ServiceCall";
+}
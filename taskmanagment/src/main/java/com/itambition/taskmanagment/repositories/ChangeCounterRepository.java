@@ -0,0 +1,32 @@
+package com.itambition.taskmanagment.repositories;
+import com.itambition.taskmanagment.models.ChangeCounter;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+
+
+@Repository
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, String> {
+
+    // Locks the counter row until the transaction ends
+    @Modifying
+    @Query("update ChangeCounter c set c.lastVersion = c.lastVersion + 1 where c.name = :name")
+    int increment(@Param("name") String name);
+
+    @Query("select c.lastVersion from ChangeCounter c where c.name = :name")
+    Long findLastVersion(@Param("name") String name);
+
+    // Moves the counter forward only, so concurrent callers can't lower it
+    @Modifying
+    @Query("update ChangeCounter c set c.lastVersion = :version where c.name = :name and c.lastVersion < :version")
+    int advance(@Param("name") String name, @Param("version") long version);
+
+    // Fails on a duplicate name, unlike save(), which would overwrite the row
+    @Modifying
+    @Query(value = "INSERT INTO change_counters (name, last_version) VALUES (:name, :version)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("version") long version);
+}
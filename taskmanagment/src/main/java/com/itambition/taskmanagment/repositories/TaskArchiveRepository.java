@@ -0,0 +1,22 @@
+package com.itambition.taskmanagment.repositories;
+import com.itambition.taskmanagment.models.ArchivedTask;
+import com.itambition.taskmanagment.models.User;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+
+
+@Repository
+public interface TaskArchiveRepository extends JpaRepository<ArchivedTask, Long> {
+
+    List<ArchivedTask> findAllByUser(User user);
+
+    @EntityGraph(attributePaths = "user")
+    Page<ArchivedTask> findByDescriptionContainingIgnoreCase(String descriptionPart, Pageable pageable);
+}
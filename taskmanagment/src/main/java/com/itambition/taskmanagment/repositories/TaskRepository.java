@@ -2,21 +2,108 @@ package com.itambition.taskmanagment.repositories;
 import com.itambition.taskmanagment.models.Task;
 import com.itambition.taskmanagment.models.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskSearchRepository {
 
     List<Task> findAllByUser(User user);
     // You can add custom query methods here if needed
 
+    // Multi-get: fetch the owning users in the same statement
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Task> findAllById(Iterable<Long> ids);
+
+    // Fetch the owning user in the same statement instead of one select per user
+    @EntityGraph(attributePaths = "user")
     Page<Task> findByDescriptionContainingIgnoreCase(String descriptionPart, Pageable pageable);
+
+    // Archival: ids of tasks past the cutoff, oldest id first, one batch per page
+    @Query("select t.id from Task t where t.deadline < :cutoff order by t.id")
+    List<Long> findIdsByDeadlineBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // The cutoff is checked again: a task may have been moved past it since its id was read
+    @Modifying
+    @Query(value = "INSERT INTO tasks_archive (id, name, description, deadline, user_id, archived_at) "
+            + "SELECT id, name, description, deadline, user_id, :archivedAt FROM tasks "
+            + "WHERE id IN (:ids) AND deadline < :cutoff",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff,
+                      @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query("delete from Task t where t.id in :ids and t.deadline < :cutoff")
+    int deleteByIdInAndDeadlineBefore(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    // Bulk updates: next chunk of matching ids after the given id (null criteria are ignored)
+    @Query("select t.id from Task t where t.id > :afterId"
+            + " and (:userId is null or t.user.id = :userId)"
+            + " and (:deadlineFrom is null or t.deadline >= :deadlineFrom)"
+            + " and (:deadlineTo is null or t.deadline < :deadlineTo)"
+            + " order by t.id")
+    List<Long> findIdsForBulkUpdate(@Param("afterId") Long afterId,
+                                    @Param("userId") Long userId,
+                                    @Param("deadlineFrom") LocalDateTime deadlineFrom,
+                                    @Param("deadlineTo") LocalDateTime deadlineTo,
+                                    Pageable pageable);
+
+    // [id, owner id] of the existing tasks among the given ids
+    @Query("select t.id, u.id from Task t left join t.user u where t.id in :ids")
+    List<Object[]> findOwnersByIdIn(@Param("ids") List<Long> ids);
+
+    // Bulk updates: [id, owner id] of the given tasks that match, re-read inside the chunk's transaction
+    @Query("select t.id, u.id from Task t left join t.user u where t.id in :ids"
+            + " and (:userId is null or u.id = :userId)"
+            + " and (:deadlineFrom is null or t.deadline >= :deadlineFrom)"
+            + " and (:deadlineTo is null or t.deadline < :deadlineTo)"
+            + " order by t.id")
+    List<Object[]> findOwnersForBulkUpdate(@Param("ids") List<Long> ids,
+                                           @Param("userId") Long userId,
+                                           @Param("deadlineFrom") LocalDateTime deadlineFrom,
+                                           @Param("deadlineTo") LocalDateTime deadlineTo);
+
+    // Bulk updates stamp the change version in the same statement as the change
+    @Modifying
+    @Query("update Task t set t.user = :user, t.changeVersion = :version where t.id in :ids")
+    int reassignOwner(@Param("ids") List<Long> ids, @Param("user") User user, @Param("version") long version);
+
+    @Modifying
+    @Query(value = "UPDATE tasks SET deadline = TIMESTAMPADD(SECOND, :seconds, deadline), change_version = :version"
+            + " WHERE id IN (:ids)",
+            nativeQuery = true)
+    int shiftDeadline(@Param("ids") List<Long> ids, @Param("seconds") long seconds, @Param("version") long version);
+
+    @Modifying
+    @Query("update Task t set t.name = :name, t.changeVersion = :version where t.id in :ids")
+    int setName(@Param("ids") List<Long> ids, @Param("name") String name, @Param("version") long version);
+
+    @Modifying
+    @Query("update Task t set t.description = :description, t.changeVersion = :version where t.id in :ids")
+    int setDescription(@Param("ids") List<Long> ids, @Param("description") String description,
+                       @Param("version") long version);
+
+    @Modifying
+    @Query("update Task t set t.deadline = :deadline, t.changeVersion = :version where t.id in :ids")
+    int setDeadline(@Param("ids") List<Long> ids, @Param("deadline") LocalDateTime deadline,
+                    @Param("version") long version);
+
+    // Delta sync: the user's tasks changed in (since, until], oldest change first
+    @EntityGraph(attributePaths = "user")
+    @Query("select t from Task t where t.user.id = :userId"
+            + " and t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion, t.id")
+    List<Task> findChanges(@Param("userId") Long userId, @Param("since") long since, @Param("until") long until);
 }
@@ -0,0 +1,107 @@
+package com.itambition.taskmanagment.repositories;
+
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plans the SQL of the filtered task search around the index that serves it.
+ *
+ * The owner is the most selective criterion, so with a user id the query is
+ * driven by {@link #USER_DEADLINE_INDEX} (user_id, deadline, id): the user
+ * equality, the deadline range and the keyset cursor are all index range
+ * conditions, and the ORDER BY repeats user_id so the index order is used
+ * without sorting. Without a user id, {@link #DEADLINE_INDEX} (deadline, id)
+ * is walked in order and the scan stops after the limit. Text is always a
+ * residual filter on the rows the index yields.
+ *
+ * Only the criteria present appear in the SQL; "(? is null or ...)"
+ * predicates would hide the usable range from the optimizer. The keyset
+ * predicate is written as {@code deadline >= ? and (deadline > ? or id > ?)}
+ * so its first term is a plain index range.
+ */
+public final class TaskSearchQuery {
+
+    public static final String USER_DEADLINE_INDEX = "idx_tasks_user_deadline";
+    public static final String DEADLINE_INDEX = "idx_tasks_deadline_id";
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final String index;
+
+    private TaskSearchQuery(String sql, List<Object> parameters, String index) {
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+        this.index = index;
+    }
+
+    public static TaskSearchQuery plan(TaskSearchCriteria criteria) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        String order = criteria.isDescending() ? " DESC" : "";
+        String after = criteria.isDescending() ? "<" : ">";
+
+        String index;
+        String orderBy;
+        if (criteria.getUserId() != null) {
+            index = USER_DEADLINE_INDEX;
+            conditions.add("t.user_id = " + bind(parameters, criteria.getUserId()));
+            orderBy = "t.user_id" + order + ", t.deadline" + order + ", t.id" + order;
+        } else {
+            index = DEADLINE_INDEX;
+            orderBy = "t.deadline" + order + ", t.id" + order;
+        }
+
+        conditions.add("t.deadline IS NOT NULL");
+        if (criteria.getDeadlineFrom() != null) {
+            conditions.add("t.deadline >= " + bind(parameters, criteria.getDeadlineFrom()));
+        }
+        if (criteria.getDeadlineTo() != null) {
+            conditions.add("t.deadline < " + bind(parameters, criteria.getDeadlineTo()));
+        }
+        if (criteria.getAfterDeadline() != null && criteria.getAfterId() != null) {
+            String deadline = bind(parameters, criteria.getAfterDeadline());
+            conditions.add("t.deadline " + after + "= " + deadline);
+            conditions.add("(t.deadline " + after + " " + deadline
+                    + " OR t.id " + after + " " + bind(parameters, criteria.getAfterId()) + ")");
+        }
+        if (criteria.getText() != null && !criteria.getText().isEmpty()) {
+            String pattern = bind(parameters, "%" + escapeLike(criteria.getText().toLowerCase(Locale.ROOT)) + "%");
+            conditions.add("(LOWER(t.name) LIKE " + pattern + " OR LOWER(t.description) LIKE " + pattern + ")");
+        }
+
+        String sql = "SELECT t.id FROM tasks t WHERE " + String.join(" AND ", conditions) + " ORDER BY " + orderBy;
+        return new TaskSearchQuery(sql, parameters, index);
+    }
+
+    // JPA-style positional parameter, understood by Hibernate and by H2
+    private static String bind(List<Object> parameters, Object value) {
+        parameters.add(value);
+        return "?" + parameters.size();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Native SQL selecting the matching task ids, in result order, with ?1..?n parameters
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * The index the query is shaped for
+     */
+    public String getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,14 @@
+package com.itambition.taskmanagment.repositories;
+
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+
+import java.util.List;
+
+/**
+ * Filtered task search, implemented with a planned native query
+ */
+public interface TaskSearchRepository {
+
+    // Ids of up to criteria.limit matching tasks, in result order
+    List<Long> searchIds(TaskSearchCriteria criteria);
+}
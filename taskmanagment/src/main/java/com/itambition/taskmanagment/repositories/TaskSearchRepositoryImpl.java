@@ -0,0 +1,33 @@
+package com.itambition.taskmanagment.repositories;
+
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+
+class TaskSearchRepositoryImpl implements TaskSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> searchIds(TaskSearchCriteria criteria) {
+        TaskSearchQuery plan = TaskSearchQuery.plan(criteria);
+        Query query = entityManager.createNativeQuery(plan.getSql());
+        List<Object> parameters = plan.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        query.setMaxResults(criteria.getLimit());
+
+        List<?> rows = query.getResultList();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,61 @@
+package com.itambition.taskmanagment.repositories;
+import com.itambition.taskmanagment.models.TaskTombstone;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    // Tombstones for owned tasks about to be deleted, written before the DELETE
+    @Modifying
+    @Query(value = "INSERT INTO task_tombstones (task_id, user_id, change_version, deleted_at) "
+            + "SELECT id, user_id, :version, :deletedAt FROM tasks WHERE id IN (:ids) AND user_id IS NOT NULL",
+            nativeQuery = true)
+    int recordDeletion(@Param("ids") List<Long> ids, @Param("version") long version,
+                       @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Tombstones for owned tasks about to be archived, with the archiver's cutoff check
+    @Modifying
+    @Query(value = "INSERT INTO task_tombstones (task_id, user_id, change_version, deleted_at) "
+            + "SELECT id, user_id, :version, :deletedAt FROM tasks "
+            + "WHERE id IN (:ids) AND deadline < :cutoff AND user_id IS NOT NULL",
+            nativeQuery = true)
+    int recordArchival(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff,
+                       @Param("version") long version, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Tombstones for the previous owners of tasks about to move to another user
+    @Modifying
+    @Query(value = "INSERT INTO task_tombstones (task_id, user_id, change_version, deleted_at) "
+            + "SELECT id, user_id, :version, :deletedAt FROM tasks WHERE id IN (:ids) AND user_id <> :userId",
+            nativeQuery = true)
+    int recordOwnerChange(@Param("ids") List<Long> ids, @Param("userId") Long newUserId,
+                          @Param("version") long version, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Delta sync: ids of tasks that left the user's list in (since, until]
+    @Query("select t.taskId from TaskTombstone t where t.userId = :userId"
+            + " and t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion")
+    List<Long> findDeletedTaskIds(@Param("userId") Long userId, @Param("since") long since,
+                                  @Param("until") long until);
+
+    // Compaction: last version among the tombstones older than the cutoff
+    @Query("select max(t.changeVersion) from TaskTombstone t where t.deletedAt < :cutoff")
+    Long findLastVersionDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Compaction: ids of tombstones up to a version, oldest first, one batch per page
+    @Query("select t.id from TaskTombstone t where t.changeVersion <= :version order by t.changeVersion")
+    List<Long> findIdsUpToVersion(@Param("version") long version, Pageable pageable);
+
+    @Modifying
+    @Query("delete from TaskTombstone t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
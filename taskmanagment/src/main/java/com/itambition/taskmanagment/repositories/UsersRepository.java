@@ -1,8 +1,10 @@
 package com.itambition.taskmanagment.repositories;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.itambition.taskmanagment.models.User;
@@ -10,4 +12,8 @@ import com.itambition.taskmanagment.models.User;
 @Repository
 public interface UsersRepository extends JpaRepository<User, Long> {
    Optional<User> findByUserName(String userName);
+
+   // Usernames only, for the autocomplete index
+   @Query("select u.userName from User u")
+   List<String> findAllUserNames();
 }
\ No newline at end of file
@@ -1,15 +1,22 @@
 package com.itambition.taskmanagment.rests;
 
+import com.itambition.taskmanagment.dto.BulkTaskUpdateRequest;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateResult;
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+import com.itambition.taskmanagment.dto.TaskSearchResult;
 import com.itambition.taskmanagment.models.Task;
 import com.itambition.taskmanagment.services.TasksServices;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,6 +24,9 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class TasksController {
 
+    private static final int MAX_MULTI_GET_IDS = 1000;
+    private static final int MAX_SEARCH_SIZE = 100;
+
     @Autowired
     private TasksServices tasksServices;
 
@@ -34,6 +44,23 @@ public class TasksController {
         }
     }
 
+    /**
+     * Get tasks by a list of IDs, in the requested order; unknown IDs are listed as missing
+     * GET /api/tasks?ids={id},{id},...
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Task>> getTasksByIds(@RequestParam("ids") List<Long> ids) {
+        try {
+            if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            MultiGetResult<Task> tasks = tasksServices.getTasksByIds(ids);
+            return new ResponseEntity<>(tasks, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Update an existing task
      * PUT /api/tasks
@@ -67,6 +94,24 @@ public class TasksController {
         }
     }
 
+    /**
+     * Update every task matching a filter with one operation
+     * POST /api/tasks/bulk-update
+     * Each chunk holds the task change counter, which every task write waits
+     * for, while it runs; see TaskVersionCounter for the throughput ceiling
+     */
+    @PostMapping("/bulk-update")
+    public ResponseEntity<BulkTaskUpdateResult> bulkUpdate(@RequestBody BulkTaskUpdateRequest request) {
+        try {
+            BulkTaskUpdateResult result = tasksServices.bulkUpdate(request);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Remove multiple tasks by their IDs
      * DELETE /api/tasks
@@ -101,16 +146,20 @@ public class TasksController {
 
     /**
      * Search tasks by description with pagination
-     * GET /api/tasks/search?description={description}&page={page}&size={size}
+     * GET /api/tasks/search?description={description}&page={page}&size={size}&archived={archived}
+     * With archived=true the archive of past-deadline tasks is searched instead
      */
     @GetMapping("/search")
     public ResponseEntity<Page<Task>> searchByDescription(
             @RequestParam("description") String description,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "archived", defaultValue = "false") boolean archived) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Task> tasks = tasksServices.searchByDescription(description, pageable);
+            Page<Task> tasks = archived
+                    ? tasksServices.searchArchivedByDescription(description, pageable)
+                    : tasksServices.searchByDescription(description, pageable);
             
             if (!tasks.hasContent()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -120,4 +169,44 @@ public class TasksController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Search tasks by owner, deadline range and text, ordered by deadline
+     * GET /api/tasks/filter?userId={userId}&deadlineFrom={from}&deadlineTo={to}&text={text}&direction={asc|desc}&size={size}&after={cursor}
+     * Pass the returned "next" cursor as "after" to get the following page
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<TaskSearchResult> searchTasks(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "deadlineFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineFrom,
+            @RequestParam(value = "deadlineTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime deadlineTo,
+            @RequestParam(value = "text", required = false) String text,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "after", required = false) String after) {
+        try {
+            if (size < 1 || !(direction.equalsIgnoreCase("asc") || direction.equalsIgnoreCase("desc"))) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            TaskSearchCriteria criteria = new TaskSearchCriteria();
+            criteria.setUserId(userId);
+            criteria.setDeadlineFrom(deadlineFrom);
+            criteria.setDeadlineTo(deadlineTo);
+            criteria.setText(text);
+            criteria.setDescending(direction.equalsIgnoreCase("desc"));
+            criteria.setLimit(Math.min(size, MAX_SEARCH_SIZE));
+            TaskSearchResult result = tasksServices.searchTasks(criteria, after);
+
+            if (result.getContent().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -1,9 +1,15 @@
 package com.itambition.taskmanagment.rests;
 
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskChanges;
 import com.itambition.taskmanagment.models.Task;
 import com.itambition.taskmanagment.models.User;
 import com.itambition.taskmanagment.services.UsersServices;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +22,10 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class UsersController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+    private static final int MAX_MULTI_GET_IDS = 1000;
+
     @Autowired
     private UsersServices usersServices;
 
@@ -50,6 +60,66 @@ public class UsersController {
         }
     }
 
+    /**
+     * Get users by a list of IDs, in the requested order; unknown IDs are listed as missing
+     * GET /api/users?ids={id},{id},...
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<User>> getUsersByIds(@RequestParam("ids") List<Long> ids) {
+        try {
+            if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            MultiGetResult<User> users = usersServices.getUsersByIds(ids);
+            return new ResponseEntity<>(users, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Get one page of users ordered by ID
+     * GET /api/users?page={page}&size={size}
+     * With ids present as well, the ids lookup answers
+     */
+    @GetMapping(params = {"page", "!ids"})
+    public ResponseEntity<Page<User>> getUsersPage(
+            @RequestParam("page") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            if (page < 0 || size < 1) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Pageable pageable = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), Sort.by("id"));
+            Page<User> users = usersServices.getAllUsers(pageable);
+            if (!users.hasContent()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(users, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Autocomplete usernames by prefix
+     * GET /api/users/autocomplete?prefix={prefix}&limit={limit}
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<String>> autocompleteUserNames(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            List<String> userNames = usersServices.autocompleteUserNames(prefix, Math.min(limit, MAX_AUTOCOMPLETE_LIMIT));
+            if (userNames.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(userNames, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Get user by ID
      * GET /api/users/{id}
@@ -87,13 +157,17 @@ public class UsersController {
     }
 
     /**
-     * Get all tasks of a specific user
-     * GET /api/users/{userId}/tasks
+     * Get all tasks of a specific user, optionally including archived ones
+     * GET /api/users/{userId}/tasks?includeArchived={includeArchived}
      */
     @GetMapping("/{userId}/tasks")
-    public ResponseEntity<List<Task>> getTasksOfUser(@PathVariable("userId") Long userId) {
+    public ResponseEntity<List<Task>> getTasksOfUser(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
         try {
-            List<Task> tasks = usersServices.getTasksOfUser(userId);
+            List<Task> tasks = includeArchived
+                    ? usersServices.getTasksOfUser(userId, true)
+                    : usersServices.getTasksOfUser(userId);
             if (tasks == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -105,4 +179,34 @@ public class UsersController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Get the tasks of a user changed or removed after a watermark
+     * GET /api/users/{userId}/tasks/changes?since={watermark}
+     * Start with since=0 and pass the returned watermark on the next call
+     * Returns 410 Gone with resyncRequired when the tombstones after since
+     * have been compacted away; start over with since=0 then
+     * Versions come from one counter that serializes all task writes; see
+     * TaskVersionCounter for the write throughput ceiling this implies
+     */
+    @GetMapping("/{userId}/tasks/changes")
+    public ResponseEntity<TaskChanges> getTaskChanges(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "since", defaultValue = "0") long since) {
+        try {
+            if (since < 0) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            TaskChanges changes = usersServices.getTaskChanges(userId, since);
+            if (changes == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            if (changes.isResyncRequired()) {
+                return new ResponseEntity<>(changes, HttpStatus.GONE);
+            }
+            return new ResponseEntity<>(changes, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.dto.MultiGetResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Loads entities for a list of ids with one IN query per chunk and returns
+ * them in the requested order. Duplicate and null ids are ignored.
+ */
+final class MultiGet {
+
+    private MultiGet() {
+    }
+
+    static <T> MultiGetResult<T> load(List<Long> ids, int chunkSize,
+                                      Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        Map<Long, T> byId = new HashMap<>(distinct.size() * 2);
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            for (T entity : loader.apply(chunk)) {
+                byId.put(idOf.apply(entity), entity);
+            }
+        }
+        List<T> found = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            T entity = byId.get(id);
+            if (entity == null) {
+                missing.add(id);
+            } else {
+                found.add(entity);
+            }
+        }
+        return new MultiGetResult<>(found, missing);
+    }
+}
@@ -0,0 +1,146 @@
+package com.itambition.taskmanagment.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-flight coalescing of identical concurrent read queries.
+ *
+ * The first caller for a key runs the query on its own thread; callers that
+ * arrive with the same key while it is in flight wait and share its result
+ * or its exception. Each waiter gets its own copy of the result, so no two
+ * requests hold the same entity instances. A waiter that gives up after
+ * {@code taskmanagment.coalescing.max-wait-ms} runs the query itself.
+ * Nothing is cached once the query has completed.
+ */
+@Component
+public class QueryCoalescer implements MeterBinder {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final long maxWaitMillis;
+
+    public QueryCoalescer(@Value("${taskmanagment.coalescing.max-wait-ms:5000}") long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Run the query for the given key, or join an identical one already in
+     * flight; for results that are immutable
+     */
+    public <T> T execute(String key, Supplier<T> query) {
+        return execute(key, query, UnaryOperator.identity());
+    }
+
+    /**
+     * Run the query for the given key, or join an identical one already in
+     * flight and return a copy of its result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> query, UnaryOperator<T> copy) {
+        calls.incrementAndGet();
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            try {
+                return copy.apply((T) await(existing));
+            } catch (TimeoutException e) {
+                // Slower than running it again; not worth failing the request
+                timeouts.incrementAndGet();
+                executions.incrementAndGet();
+                return query.get();
+            }
+        }
+
+        executions.incrementAndGet();
+        try {
+            T result = query.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) throws TimeoutException {
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Callers currently waiting on the in-flight query for the key
+    int waiters(String key) {
+        CompletableFuture<Object> future = inFlight.get(key);
+        return future == null ? 0 : future.getNumberOfDependents();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Fraction of calls that were served by another caller's query
+     */
+    public double getCollapseRatio() {
+        long total = calls.get();
+        return total == 0 ? 0.0 : 1.0 - (double) executions.get() / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("taskmanagment.coalescing.calls", calls, AtomicLong::get)
+                .description("Coalescable query calls")
+                .register(registry);
+        FunctionCounter.builder("taskmanagment.coalescing.executions", executions, AtomicLong::get)
+                .description("Queries actually sent to the repository")
+                .register(registry);
+        FunctionCounter.builder("taskmanagment.coalescing.timeouts", timeouts, AtomicLong::get)
+                .description("Waiters that gave up on an in-flight query and ran it themselves")
+                .register(registry);
+        Gauge.builder("taskmanagment.coalescing.collapse.ratio", this, QueryCoalescer::getCollapseRatio)
+                .register(registry);
+        Gauge.builder("taskmanagment.coalescing.in.flight", inFlight, ConcurrentMap::size)
+                .register(registry);
+    }
+}
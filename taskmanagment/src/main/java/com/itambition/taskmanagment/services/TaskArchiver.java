@@ -0,0 +1,115 @@
+package com.itambition.taskmanagment.services;
+import com.itambition.taskmanagment.cache.JsonFragmentCache;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+
+/**
+ * Background job moving tasks whose deadline is older than the retention
+ * window from tasks into tasks_archive.
+ *
+ * Rows are moved in small batches, each in its own short transaction keyed
+ * by primary key, with a pause between batches so the job never holds locks
+ * for long or competes with request traffic. The cutoff is checked again
+ * when rows are copied and deleted, so a task whose deadline was moved
+ * after its id was read stays where it is.
+ */
+@Component
+public class TaskArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiver.class);
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonFragmentCache jsonFragmentCache;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Value("${taskmanagment.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${taskmanagment.archive.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${taskmanagment.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${taskmanagment.archive.batch-pause-ms:200}")
+    private long batchPauseMillis;
+
+    @Scheduled(initialDelayString = "${taskmanagment.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${taskmanagment.archive.interval-ms:3600000}")
+    public void archiveExpiredTasks() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofDays(retentionDays));
+        int archived = 0;
+        int moved;
+        do {
+            moved = archiveBatch(cutoff);
+            archived += moved;
+            if (moved == batchSize && !pause()) {
+                break;
+            }
+        } while (moved == batchSize);
+
+        if (archived > 0) {
+            log.info("Archived {} tasks with deadline before {}", archived, cutoff);
+        }
+    }
+
+    /**
+     * Move one batch of expired tasks in a single short transaction
+     */
+    int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = taskRepository.findIdsByDeadlineBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Integer moved = transactionTemplate.execute(status -> {
+            // Counter row first, like every other writer, so the locks are taken in one order
+            long version = taskVersionCounter.next();
+            LocalDateTime now = LocalDateTime.now();
+            taskRepository.copyToArchive(ids, cutoff, now);
+            // Archived tasks leave the active lists that clients sync
+            taskTombstoneRepository.recordArchival(ids, cutoff, version, now);
+            return taskRepository.deleteByIdInAndDeadlineBefore(ids, cutoff);
+        });
+        // After commit, so a concurrent reader can't cache a row that is about to go
+        jsonFragmentCache.invalidateAll(Task.class, ids);
+        return moved == null ? 0 : moved;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.itambition.taskmanagment.services;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+
+/**
+ * Background job pruning task tombstones older than the retention window.
+ *
+ * The compaction watermark is raised to the last pruned version and
+ * committed before any tombstone is deleted, so a delta sync reading it
+ * after its tombstones never misses one silently: a client whose watermark
+ * is older is told to resync instead. Tombstones are then deleted in small
+ * batches, each in its own short transaction.
+ */
+@Component
+public class TaskTombstoneCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskTombstoneCompactor.class);
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${taskmanagment.tombstones.enabled:true}")
+    private boolean enabled;
+
+    @Value("${taskmanagment.tombstones.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${taskmanagment.tombstones.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${taskmanagment.tombstones.initial-delay-ms:60000}",
+            fixedDelayString = "${taskmanagment.tombstones.interval-ms:3600000}")
+    public void compactExpiredTombstones() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofDays(retentionDays));
+        int removed = compact(cutoff);
+        if (removed > 0) {
+            log.info("Compacted {} task tombstones older than {}", removed, cutoff);
+        }
+    }
+
+    /**
+     * Raise the watermark past the tombstones older than the cutoff, then
+     * delete every tombstone up to it
+     */
+    int compact(LocalDateTime cutoff) {
+        long watermark = transactionTemplate.execute(status -> {
+            Long version = taskTombstoneRepository.findLastVersionDeletedBefore(cutoff);
+            if (version != null) {
+                taskVersionCounter.compactUpTo(version);
+            }
+            return taskVersionCounter.compactedVersion();
+        });
+        int removed = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = taskTombstoneRepository.findIdsUpToVersion(watermark, PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : taskTombstoneRepository.deleteByIdIn(ids);
+            });
+            removed += deleted;
+        } while (deleted == batchSize);
+        return removed;
+    }
+}
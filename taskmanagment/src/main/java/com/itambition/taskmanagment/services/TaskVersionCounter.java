@@ -0,0 +1,140 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.repositories.ChangeCounterRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of the monotonically increasing change versions of tasks.
+ *
+ * The counter is a row of change_counters incremented inside the writing
+ * transaction. Its row lock is held until commit, so versions become
+ * visible in increasing order: a reader that sees version N committed sees
+ * every change up to N.
+ *
+ * This serializes all task writes of the application, across instances: task
+ * write throughput is at most one transaction per lock hold time. Single-task
+ * writes hold it for a few statements, a bulk update or archival chunk for the
+ * chunk's UPDATE or INSERT ... SELECT and DELETE, which grows with
+ * {@code bulk-update.chunk-size} and {@code archive.batch-size}. The hold time
+ * is published as {@code taskmanagment.change.counter.hold}; lower the chunk
+ * sizes if it delays interactive writes.
+ *
+ * A second row holds the compaction watermark: tombstones up to that version
+ * have been pruned, so a delta from an older version would be incomplete.
+ */
+@Component
+public class TaskVersionCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskVersionCounter.class);
+
+    static final String NAME = "tasks";
+
+    static final String COMPACTED_NAME = "tasks_compacted";
+
+    @Autowired
+    private ChangeCounterRepository changeCounterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Not a MeterBinder: binders are created with the registry, before the
+    // repositories the counter needs can be
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer holdTimer;
+
+    /**
+     * Take the next version; must run in the transaction of the write
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        recordHoldTime(System.nanoTime());
+        if (changeCounterRepository.increment(NAME) == 0) {
+            throw new IllegalStateException("Change counter " + NAME + " is missing");
+        }
+        return changeCounterRepository.findLastVersion(NAME);
+    }
+
+    @PostConstruct
+    void start() {
+        holdTimer = Timer.builder("taskmanagment.change.counter.hold")
+                .description("Time task writes hold the change counter row lock")
+                .register(meterRegistry);
+        createCounters();
+    }
+
+    /**
+     * Create the counter rows when the schema was made without the
+     * migrations' seed rows, before any write needs them
+     */
+    void createCounters() {
+        createIfMissing(NAME, 1);
+        createIfMissing(COMPACTED_NAME, 0);
+    }
+
+    private void createIfMissing(String name, long lastVersion) {
+        try {
+            transactionTemplate.execute(status -> {
+                if (!changeCounterRepository.existsById(name)) {
+                    changeCounterRepository.insert(name, lastVersion);
+                }
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+            log.debug("Change counter {} already created: {}", name, e.getMessage());
+        }
+    }
+
+    // The row lock is released when the writing transaction completes
+    private void recordHoldTime(long lockedAtNanos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                holdTimer.record(System.nanoTime() - lockedAtNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * The last committed version
+     */
+    public long current() {
+        Long version = changeCounterRepository.findLastVersion(NAME);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * The version up to which tombstones may have been pruned
+     */
+    public long compactedVersion() {
+        Long version = changeCounterRepository.findLastVersion(COMPACTED_NAME);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Raise the compaction watermark; it never moves back
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void compactUpTo(long version) {
+        changeCounterRepository.advance(COMPACTED_NAME, version);
+    }
+}
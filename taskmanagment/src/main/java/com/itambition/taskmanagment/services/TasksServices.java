@@ -1,12 +1,37 @@
 package com.itambition.taskmanagment.services;
+import com.itambition.taskmanagment.audit.AuditEvent;
+import com.itambition.taskmanagment.audit.AuditLog;
+import com.itambition.taskmanagment.cache.JsonFragmentCache;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateRequest;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateResult;
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+import com.itambition.taskmanagment.dto.TaskSearchResult;
 import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.ArchivedTask;
+import com.itambition.taskmanagment.models.TaskTombstone;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskArchiveRepository;
 import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 
@@ -15,47 +40,321 @@ import java.util.stream.Collectors;
 
 @Service
 public class TasksServices {
+
+    // Separates deadline and id in search cursors
+    private static final String CURSOR_SEPARATOR = "_";
     
     @Autowired
     private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private QueryCoalescer queryCoalescer;
+
+    @Autowired
+    private JsonFragmentCache jsonFragmentCache;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Value("${taskmanagment.bulk-update.chunk-size:1000}")
+    private int bulkUpdateChunkSize;
+
+    @Value("${taskmanagment.multi-get.chunk-size:500}")
+    private int multiGetChunkSize;
     
     
     
     /**
      * Add a new task
      */
+    @Transactional
     public Task addTask(Task task) {
-        return taskRepository.save(task);
+        task.setChangeVersion(taskVersionCounter.next());
+        Task savedTask = taskRepository.save(task);
+        Long taskId = savedTask.getId();
+        Long ownerId = ownerId(savedTask);
+        afterCommit(() -> {
+            jsonFragmentCache.invalidate(Task.class, taskId);
+            auditLog.record(AuditEvent.Type.TASK_CREATED, taskId, ownerId);
+        });
+        return savedTask;
     }
     
     /**
      * Update an existing task
      */
+    @Transactional
     public Task updateTask(Task task) {
-        if (task.getId() == null || !taskRepository.existsById(task.getId())) {
+        Task existing = task.getId() == null ? null : taskRepository.findById(task.getId()).orElse(null);
+        if (existing == null) {
             throw new IllegalArgumentException("Task not found with ID: " + task.getId());
         }
-        return taskRepository.save(task);
+        long version = taskVersionCounter.next();
+        Long previousOwnerId = ownerId(existing);
+        if (previousOwnerId != null && !previousOwnerId.equals(ownerId(task))) {
+            // The task leaves the previous owner's list
+            taskTombstoneRepository.save(new TaskTombstone(task.getId(), previousOwnerId, version, LocalDateTime.now()));
+        }
+        task.setChangeVersion(version);
+        Task savedTask = taskRepository.save(task);
+        Long taskId = savedTask.getId();
+        Long ownerId = ownerId(savedTask);
+        afterCommit(() -> {
+            jsonFragmentCache.invalidate(Task.class, taskId);
+            auditLog.record(AuditEvent.Type.TASK_UPDATED, taskId, ownerId);
+        });
+        return savedTask;
     }
     
     /**
-     * Remove multiple tasks by their IDs
+     * Remove multiple tasks by their IDs; unknown IDs are ignored
      */
     @Transactional
     public void removeTasks(List<Long> taskIds) {
-        taskRepository.deleteInBatch(taskIds.stream()
+        List<Object[]> existing = taskRepository.findOwnersByIdIn(taskIds);
+        if (existing.isEmpty()) {
+            return;
+        }
+        List<Long> ids = existing.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+        taskTombstoneRepository.recordDeletion(ids, taskVersionCounter.next(), LocalDateTime.now());
+        taskRepository.deleteInBatch(ids.stream()
                 .map(id -> {
                     Task task = new Task();
                     task.setId(id);
                     return task;
                 })
                 .collect(Collectors.toList()));
+        afterCommit(() -> {
+            jsonFragmentCache.invalidateAll(Task.class, ids);
+            for (Object[] row : existing) {
+                auditLog.record(AuditEvent.Type.TASK_DELETED, (Long) row[0], (Long) row[1]);
+            }
+        });
     }
     
     /**
-     * Search tasks by description with pagination
+     * Get tasks by a list of IDs, in the requested order, with one query per chunk
+     */
+    public MultiGetResult<Task> getTasksByIds(List<Long> taskIds) {
+        return MultiGet.load(taskIds, multiGetChunkSize, taskRepository::findAllById, Task::getId);
+    }
+
+    /**
+     * Search tasks by description with pagination.
+     * Identical concurrent searches share a single repository call; the match
+     * is case-insensitive, so the description is lower-cased for the key.
      */
     public Page<Task> searchByDescription(String descriptionPart, Pageable pageable) {
-        return taskRepository.findByDescriptionContainingIgnoreCase(descriptionPart, pageable);
+        String key = "tasks.searchByDescription|" + pageable + "|"
+                + (descriptionPart == null ? "" : descriptionPart.toLowerCase(Locale.ROOT));
+        return queryCoalescer.execute(key,
+                () -> taskRepository.findByDescriptionContainingIgnoreCase(descriptionPart, pageable),
+                page -> page.map(Task::copy));
+    }
+
+    /**
+     * Search tasks by owner, deadline range and text in one query, ordered by
+     * deadline and continuing after the given cursor
+     */
+    public TaskSearchResult searchTasks(TaskSearchCriteria criteria, String cursor) {
+        if (criteria.getDeadlineFrom() != null && criteria.getDeadlineTo() != null
+                && !criteria.getDeadlineFrom().isBefore(criteria.getDeadlineTo())) {
+            throw new IllegalArgumentException("deadlineFrom must be before deadlineTo");
+        }
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+            try {
+                criteria.setAfterDeadline(LocalDateTime.parse(cursor.substring(0, Math.max(separator, 0))));
+                criteria.setAfterId(Long.valueOf(cursor.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        int limit = criteria.getLimit();
+        // One extra id tells whether there is a next page
+        criteria.setLimit(limit + 1);
+        List<Long> ids = taskRepository.searchIds(criteria);
+        boolean hasNext = ids.size() > limit;
+        List<Task> tasks = MultiGet.load(hasNext ? ids.subList(0, limit) : ids, multiGetChunkSize,
+                taskRepository::findAllById, Task::getId).getFound();
+        String next = null;
+        if (hasNext && !tasks.isEmpty()) {
+            Task last = tasks.get(tasks.size() - 1);
+            next = last.getDeadline() + CURSOR_SEPARATOR + last.getId();
+        }
+        return new TaskSearchResult(tasks, next);
+    }
+
+    /**
+     * Search archived tasks by description with pagination
+     */
+    public Page<Task> searchArchivedByDescription(String descriptionPart, Pageable pageable) {
+        return taskArchiveRepository.findByDescriptionContainingIgnoreCase(descriptionPart, pageable)
+                .map(ArchivedTask::toTask);
+    }
+
+    /**
+     * Apply one operation to every task matching the filter.
+     * Matching ids are walked in id order, and each chunk is changed by a single
+     * set-based UPDATE in its own short transaction. Every task the UPDATE
+     * writes gets the chunk's change version, even if the operation leaves its
+     * values as they were (a shift of a task without deadline, an unchanged
+     * field); delta sync then returns an identical task, which is harmless.
+     */
+    public BulkTaskUpdateResult bulkUpdate(BulkTaskUpdateRequest request) {
+        BulkTaskUpdateRequest.Filter filter = request.getFilter();
+        if (filter == null || filter.isEmpty()) {
+            throw new IllegalArgumentException("Bulk update requires at least one filter criterion");
+        }
+        BiConsumer<List<Long>, Long> update = bulkOperation(request.getOperation());
+        // Moved tasks leave their previous owners' lists
+        Long newOwnerId = request.getOperation().getType() == BulkTaskUpdateRequest.OperationType.SET_OWNER
+                ? request.getOperation().getUserId() : null;
+
+        long updated = 0;
+        int chunks = 0;
+        if (filter.getIds() != null && !filter.getIds().isEmpty()) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(filter.getIds()));
+            for (int from = 0; from < ids.size(); from += bulkUpdateChunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + bulkUpdateChunkSize, ids.size()));
+                updated += updateChunk(chunk, filter, update, newOwnerId);
+                chunks++;
+            }
+        } else {
+            long afterId = 0;
+            List<Long> chunk;
+            do {
+                chunk = taskRepository.findIdsForBulkUpdate(afterId,
+                        filter.getUserId(), filter.getDeadlineFrom(), filter.getDeadlineTo(),
+                        PageRequest.of(0, bulkUpdateChunkSize));
+                if (!chunk.isEmpty()) {
+                    updated += updateChunk(chunk, filter, update, newOwnerId);
+                    chunks++;
+                    afterId = chunk.get(chunk.size() - 1);
+                }
+            } while (chunk.size() == bulkUpdateChunkSize);
+        }
+        return new BulkTaskUpdateResult(updated, chunks);
+    }
+
+    private int updateChunk(List<Long> ids, BulkTaskUpdateRequest.Filter filter,
+                            BiConsumer<List<Long>, Long> update, Long newOwnerId) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> changed = transactionTemplate.execute(status -> {
+            long version = taskVersionCounter.next();
+            // Re-check the filter: holding the counter, no other writer can move a task in or out of it
+            List<Object[]> matched = taskRepository.findOwnersForBulkUpdate(ids,
+                    filter.getUserId(), filter.getDeadlineFrom(), filter.getDeadlineTo());
+            if (matched.isEmpty()) {
+                return matched;
+            }
+            List<Long> matchedIds = matched.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+            if (newOwnerId != null) {
+                taskTombstoneRepository.recordOwnerChange(matchedIds, newOwnerId, version, LocalDateTime.now());
+            }
+            update.accept(matchedIds, version);
+            return matched;
+        });
+        if (changed == null || changed.isEmpty()) {
+            return 0;
+        }
+        jsonFragmentCache.invalidateAll(Task.class,
+                changed.stream().map(row -> row[0]).collect(Collectors.toList()));
+        for (Object[] row : changed) {
+            auditLog.record(AuditEvent.Type.TASK_UPDATED, (Long) row[0],
+                    newOwnerId != null ? newOwnerId : (Long) row[1]);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Run once the current transaction commits, or now without one: a write
+     * that rolls back must not be audited, and invalidating before commit lets
+     * a concurrent reader cache the old row again
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Long ownerId(Task task) {
+        return task.getUser() == null ? null : task.getUser().getId();
+    }
+
+    private BiConsumer<List<Long>, Long> bulkOperation(BulkTaskUpdateRequest.Operation operation) {
+        if (operation == null || operation.getType() == null) {
+            throw new IllegalArgumentException("Bulk update requires an operation type");
+        }
+        switch (operation.getType()) {
+            case SET_OWNER:
+                if (operation.getUserId() == null) {
+                    throw new IllegalArgumentException("SET_OWNER requires userId");
+                }
+                User owner = usersRepository.findById(operation.getUserId())
+                        .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + operation.getUserId()));
+                return (ids, version) -> taskRepository.reassignOwner(ids, owner, version);
+            case SHIFT_DEADLINE:
+                if (operation.getDuration() == null) {
+                    throw new IllegalArgumentException("SHIFT_DEADLINE requires duration");
+                }
+                // TIMESTAMPADD takes whole seconds; don't drop a fraction silently
+                if (operation.getDuration().getNano() != 0) {
+                    throw new IllegalArgumentException("SHIFT_DEADLINE duration must be whole seconds: "
+                            + operation.getDuration());
+                }
+                long seconds = operation.getDuration().getSeconds();
+                return (ids, version) -> taskRepository.shiftDeadline(ids, seconds, version);
+            case SET_FIELD:
+                return setFieldOperation(operation.getField(), operation.getValue());
+            default:
+                throw new IllegalArgumentException("Unsupported bulk operation: " + operation.getType());
+        }
+    }
+
+    private BiConsumer<List<Long>, Long> setFieldOperation(String field, String value) {
+        if ("name".equals(field)) {
+            if (value == null) {
+                throw new IllegalArgumentException("Task name cannot be null");
+            }
+            return (ids, version) -> taskRepository.setName(ids, value, version);
+        }
+        if ("description".equals(field)) {
+            return (ids, version) -> taskRepository.setDescription(ids, value, version);
+        }
+        if ("deadline".equals(field)) {
+            LocalDateTime deadline;
+            try {
+                deadline = value == null ? null : LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid deadline: " + value, e);
+            }
+            return (ids, version) -> taskRepository.setDeadline(ids, deadline, version);
+        }
+        throw new IllegalArgumentException("Unsupported field for SET_FIELD: " + field);
     }
 }
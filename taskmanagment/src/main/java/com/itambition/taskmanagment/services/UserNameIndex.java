@@ -0,0 +1,164 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * In-memory prefix index of usernames for autocomplete.
+ *
+ * Usernames are kept in two parallel arrays sorted by lower-cased key, so a
+ * prefix lookup is a binary search plus a short scan. Readers use an
+ * immutable snapshot; writers replace it. The index is loaded when the
+ * application is ready, updated on every added user and periodically
+ * rebuilt to pick up users added through other instances. Users added
+ * while a rebuild is loading are kept in the rebuilt index.
+ */
+@Component
+public class UserNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserNameIndex.class);
+
+    private static final Comparator<String> ORDER =
+            Comparator.comparing((String name) -> name.toLowerCase(Locale.ROOT)).thenComparing(Comparator.naturalOrder());
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new String[0]);
+
+    // One refresh at a time; names added while it loads are replayed onto its result
+    private final Object refreshLock = new Object();
+    private boolean refreshing;
+    private final List<String> addedDuringRefresh = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${taskmanagment.autocomplete.refresh-ms:300000}",
+            fixedDelayString = "${taskmanagment.autocomplete.refresh-ms:300000}")
+    public void refresh() {
+        synchronized (refreshLock) {
+            synchronized (this) {
+                refreshing = true;
+                addedDuringRefresh.clear();
+            }
+            try {
+                List<String> userNames = new ArrayList<>(usersRepository.findAllUserNames());
+                synchronized (this) {
+                    userNames.addAll(addedDuringRefresh);
+                    rebuild(userNames);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not load usernames for autocomplete: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    refreshing = false;
+                    addedDuringRefresh.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the index content
+     */
+    synchronized void rebuild(List<String> userNames) {
+        List<String> sorted = new ArrayList<>(new HashSet<>(userNames));
+        sorted.removeIf(name -> name == null);
+        sorted.sort(ORDER);
+        String[] names = sorted.toArray(new String[0]);
+        String[] keys = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+        snapshot = new Snapshot(keys, names);
+    }
+
+    /**
+     * Add a single username, keeping the arrays sorted
+     */
+    public synchronized void add(String userName) {
+        if (userName == null) {
+            return;
+        }
+        if (refreshing) {
+            addedDuringRefresh.add(userName);
+        }
+        Snapshot current = snapshot;
+        String key = userName.toLowerCase(Locale.ROOT);
+        int at = lowerBound(current.keys, key);
+        for (int i = at; i < current.keys.length && current.keys[i].equals(key); i++) {
+            if (current.names[i].equals(userName)) {
+                return;
+            }
+        }
+        int length = current.names.length;
+        String[] keys = new String[length + 1];
+        String[] names = new String[length + 1];
+        System.arraycopy(current.keys, 0, keys, 0, at);
+        System.arraycopy(current.names, 0, names, 0, at);
+        keys[at] = key;
+        names[at] = userName;
+        System.arraycopy(current.keys, at, keys, at + 1, length - at);
+        System.arraycopy(current.names, at, names, at + 1, length - at);
+        snapshot = new Snapshot(keys, names);
+    }
+
+    /**
+     * Up to {@code limit} usernames starting with the prefix, ignoring case, in order
+     */
+    public List<String> search(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(current.keys, key);
+             i < current.keys.length && result.size() < limit && current.keys[i].startsWith(key); i++) {
+            result.add(current.names[i]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.names.length;
+    }
+
+    // First index whose key is >= the given key
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Snapshot {
+        final String[] keys;
+        final String[] names;
+
+        Snapshot(String[] keys, String[] names) {
+            this.keys = keys;
+            this.names = names;
+        }
+    }
+}
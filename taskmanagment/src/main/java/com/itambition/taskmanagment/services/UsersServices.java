@@ -1,13 +1,29 @@
 package com.itambition.taskmanagment.services;
 
+import com.itambition.taskmanagment.audit.AuditEvent;
+import com.itambition.taskmanagment.audit.AuditLog;
+import com.itambition.taskmanagment.cache.JsonFragmentCache;
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskChanges;
 import com.itambition.taskmanagment.models.User;
 import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.ArchivedTask;
+import com.itambition.taskmanagment.repositories.TaskArchiveRepository;
 import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
 import com.itambition.taskmanagment.repositories.UsersRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UsersServices {
@@ -18,9 +34,37 @@ public class UsersServices {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private QueryCoalescer queryCoalescer;
+
+    @Autowired
+    private UserNameIndex userNameIndex;
+
+    @Autowired
+    private JsonFragmentCache jsonFragmentCache;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Value("${taskmanagment.multi-get.chunk-size:500}")
+    private int multiGetChunkSize;
+
     // Add a new user
     public User addUser(User user) {
-        return usersRepository.save(user);
+        User savedUser = usersRepository.save(user);
+        userNameIndex.add(savedUser.getUserName());
+        jsonFragmentCache.invalidate(User.class, savedUser.getId());
+        auditLog.record(AuditEvent.Type.USER_CREATED, savedUser.getId(), null);
+        return savedUser;
     }
 
     // Get all users
@@ -28,19 +72,81 @@ public class UsersServices {
         return usersRepository.findAll();
     }
 
+    // Get one page of users
+    public Page<User> getAllUsers(Pageable pageable) {
+        return usersRepository.findAll(pageable);
+    }
+
+    // Usernames starting with the prefix (ignoring case), served from the in-memory index
+    public List<String> autocompleteUserNames(String prefix, int limit) {
+        return userNameIndex.search(prefix, limit);
+    }
+
     // Search user by id
     public Optional<User> getUserById(Long id) {
         return usersRepository.findById(id);
     }
 
-    // Search user by username (assuming such a method exists in UsersRepository)
+    // Get users by a list of ids, in the requested order, with one query per chunk
+    public MultiGetResult<User> getUsersByIds(List<Long> ids) {
+        return MultiGet.load(ids, multiGetChunkSize, usersRepository::findAllById, User::getId);
+    }
+
+    // Search user by username; identical concurrent lookups share one query.
+    // Keyed in lower case: the user_name collation ignores case, so these find the same row
     public Optional<User> getUserByUserName(String userName) {
-        return usersRepository.findByUserName(userName);
+        String key = "users.findByUserName|" + (userName == null ? "" : userName.toLowerCase(Locale.ROOT));
+        return queryCoalescer.execute(key, () -> usersRepository.findByUserName(userName),
+                user -> user.map(User::copy));
     }
 
     // Get tasks of a user
     public List<Task> getTasksOfUser(Long userId) {
+        return getTasksOfUser(userId, false);
+    }
+
+    // Get tasks of a user, optionally followed by the user's archived tasks
+    public List<Task> getTasksOfUser(Long userId, boolean includeArchived) {
+        return usersRepository.findById(userId).map(user -> {
+            List<Task> tasks = taskRepository.findAllByUser(user);
+            if (!includeArchived) {
+                return tasks;
+            }
+            List<Task> all = new ArrayList<>(tasks);
+            for (ArchivedTask archivedTask : taskArchiveRepository.findAllByUser(user)) {
+                all.add(archivedTask.toTask());
+            }
+            return all;
+        }).orElse(null);
+    }
 
-        return usersRepository.findById(userId).map(user -> taskRepository.findAllByUser(user)).orElse(null);
+    // Tasks of a user changed or removed after the watermark; null if the user does not exist.
+    // The counter is read first so every change up to the returned watermark is committed and included.
+    @Transactional(readOnly = true)
+    public TaskChanges getTaskChanges(Long userId, long since) {
+        if (!usersRepository.existsById(userId)) {
+            return null;
+        }
+        long watermark = taskVersionCounter.current();
+        if (watermark <= since) {
+            return new TaskChanges(new ArrayList<>(), new ArrayList<>(), Math.max(watermark, since));
+        }
+        List<Task> changed = taskRepository.findChanges(userId, since, watermark);
+        Set<Long> present = new HashSet<>();
+        for (Task task : changed) {
+            present.add(task.getId());
+        }
+        List<Long> deleted = new ArrayList<>();
+        for (Long taskId : taskTombstoneRepository.findDeletedTaskIds(userId, since, watermark)) {
+            // A task moved away and back is reported by its current state
+            if (present.add(taskId)) {
+                deleted.add(taskId);
+            }
+        }
+        // Read after the tombstones: compaction raises it before deleting any
+        if (since > 0 && since < taskVersionCounter.compactedVersion()) {
+            return new TaskChanges(new ArrayList<>(), new ArrayList<>(), 0, true);
+        }
+        return new TaskChanges(changed, deleted, watermark);
     }
 }
@@ -0,0 +1,15 @@
+-- === Tasks Archive Table ===
+-- Past-deadline tasks are moved here by the background archiver.
+-- No foreign key to users so archived rows never block user changes.
+CREATE TABLE tasks_archive (
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    deadline DATETIME,
+    user_id BIGINT,
+    archived_at DATETIME NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_tasks_archive_user_id ON tasks_archive(user_id);
+CREATE INDEX idx_tasks_archive_deadline ON tasks_archive(deadline);
@@ -0,0 +1,6 @@
+-- === Filtered task search ===
+-- Owner, deadline range and keyset order served by one index range scan.
+CREATE INDEX idx_tasks_user_deadline ON tasks(user_id, deadline, id);
+
+-- Deadline range and keyset order when no owner is given.
+CREATE INDEX idx_tasks_deadline_id ON tasks(deadline, id);
@@ -0,0 +1,23 @@
+-- === Delta sync of tasks ===
+-- Version of the last write of each task; existing rows start at 1.
+ALTER TABLE tasks ADD COLUMN change_version BIGINT NOT NULL DEFAULT 1;
+CREATE INDEX idx_tasks_user_change_version ON tasks(user_id, change_version);
+
+-- Tasks that left a user's list (deleted, archived or moved to another owner).
+CREATE TABLE task_tombstones (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    task_id BIGINT NOT NULL,
+    user_id BIGINT,
+    change_version BIGINT NOT NULL,
+    deleted_at DATETIME NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_task_tombstones_user_change_version ON task_tombstones(user_id, change_version);
+
+-- Counter handing out change versions; writers lock its row until commit.
+CREATE TABLE change_counters (
+    name VARCHAR(50) NOT NULL,
+    last_version BIGINT NOT NULL,
+    PRIMARY KEY (name)
+);
+INSERT INTO change_counters (name, last_version) VALUES ('tasks', 1);
@@ -0,0 +1,6 @@
+-- === Compaction of task tombstones ===
+-- Tombstones up to this version are pruned; clients syncing from before it must resync.
+INSERT INTO change_counters (name, last_version) VALUES ('tasks_compacted', 0);
+
+-- Compaction deletes tombstones in version order.
+CREATE INDEX idx_task_tombstones_change_version ON task_tombstones(change_version);
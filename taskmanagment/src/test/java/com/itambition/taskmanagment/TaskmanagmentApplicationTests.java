@@ -8,7 +8,9 @@ import org.junit.runner.RunWith;
 
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+// A database of its own: the Flyway migrations need an empty schema, and
+// the create-drop tests leave theirs in the shared one
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
 @AutoConfigureMockMvc
 public class TaskmanagmentApplicationTests {
 
@@ -0,0 +1,174 @@
+package com.itambition.taskmanagment.audit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class AuditLogTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("audit-test");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    // Test events are written across rotated segments and read back in order
+    @Test
+    public void testRecordAndRead_AcrossSegments() throws Exception {
+        int segmentBytes = AuditSegmentFormat.HEADER_SIZE + 4 * AuditSegmentFormat.RECORD_SIZE;
+        AuditLog auditLog = newAuditLog(segmentBytes, Long.MAX_VALUE);
+        auditLog.start();
+        for (long id = 1; id <= 10; id++) {
+            auditLog.record(AuditEvent.Type.TASK_CREATED, id, 7L);
+        }
+        auditLog.record(AuditEvent.Type.USER_CREATED, 99L, null);
+        auditLog.stop();
+
+        List<AuditEvent> events = AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(11, events.size());
+        assertEquals(1, events.get(0).getEntityId());
+        assertEquals(7, events.get(0).getOwnerId());
+        assertEquals(AuditEvent.Type.USER_CREATED, events.get(10).getType());
+        assertEquals(0, events.get(10).getOwnerId());
+        assertTrue(directory.toFile().listFiles().length >= 3);
+    }
+
+    // Test the reader only returns events inside the time range
+    @Test
+    public void testRead_TimeRange() throws Exception {
+        AuditLog auditLog = newAuditLog(4096, Long.MAX_VALUE);
+        auditLog.start();
+        auditLog.record(AuditEvent.Type.TASK_UPDATED, 1L, null);
+        auditLog.stop();
+
+        long now = System.currentTimeMillis();
+        assertEquals(1, AuditLogReader.read(directory, now - 60000, now + 1).size());
+        assertEquals(0, AuditLogReader.read(directory, now + 1, Long.MAX_VALUE).size());
+    }
+
+    // Test old segments are deleted once over the size budget
+    @Test
+    public void testRetention_BySize() throws Exception {
+        int segmentBytes = AuditSegmentFormat.HEADER_SIZE + AuditSegmentFormat.RECORD_SIZE;
+        AuditLog auditLog = newAuditLog(segmentBytes, 2L * segmentBytes);
+        auditLog.start();
+        for (long id = 1; id <= 5; id++) {
+            auditLog.record(AuditEvent.Type.TASK_DELETED, id, null);
+        }
+        auditLog.stop();
+
+        assertEquals(2, directory.toFile().listFiles().length);
+        List<AuditEvent> events = AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(5, events.get(events.size() - 1).getEntityId());
+    }
+
+    // Test closed segments are cut to what was written, so a quiet log stays within its size budget
+    @Test
+    public void testRetention_BySizeCountsWrittenBytes() throws Exception {
+        int segmentBytes = 64 * 1024;
+        AuditLog auditLog = new AuditLog(true, directory.toString(), segmentBytes, 1,
+                4L * segmentBytes, Long.MAX_VALUE / 2, 1000, 100, 1000);
+        auditLog.start();
+        for (long id = 1; id <= 6; id++) {
+            auditLog.record(AuditEvent.Type.TASK_UPDATED, id, null);
+            Thread.sleep(10);
+        }
+        auditLog.stop();
+
+        List<AuditEvent> events = AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(6, events.size());
+        assertEquals(1, events.get(0).getEntityId());
+        File[] files = directory.toFile().listFiles();
+        assertTrue(files.length >= 6);
+        for (File file : files) {
+            assertTrue(file.length() <= AuditSegmentFormat.HEADER_SIZE + AuditSegmentFormat.RECORD_SIZE);
+        }
+    }
+
+    // Test a segment left preallocated by a crashed run is cut on the next start
+    @Test
+    public void testStart_TruncatesPreallocatedSegment() throws Exception {
+        Path crashed = directory.resolve(AuditSegmentFormat.fileName(1000L, 0));
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        AuditSegmentFormat.writeHeader(buffer, 1000L);
+        AuditSegmentFormat.writeRecord(buffer, new AuditEvent(AuditEvent.Type.TASK_CREATED, 1000L, 5L, 7L),
+                new byte[AuditSegmentFormat.PAYLOAD_SIZE], new CRC32());
+        Files.write(crashed, buffer.array());
+
+        AuditLog auditLog = newAuditLog(4096, Long.MAX_VALUE);
+        auditLog.start();
+        auditLog.stop();
+
+        assertEquals(AuditSegmentFormat.HEADER_SIZE + AuditSegmentFormat.RECORD_SIZE, crashed.toFile().length());
+        assertEquals(5, AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE).get(0).getEntityId());
+    }
+
+    // Test a restarted log continues after the previous run's segments instead of reusing their names
+    @Test
+    public void testRestart_ContinuesSegmentSequence() throws Exception {
+        AuditLog first = newAuditLog(4096, Long.MAX_VALUE);
+        first.start();
+        first.record(AuditEvent.Type.TASK_CREATED, 1L, 7L);
+        first.stop();
+
+        AuditLog second = newAuditLog(4096, Long.MAX_VALUE);
+        second.start();
+        second.record(AuditEvent.Type.TASK_DELETED, 1L, 7L);
+        second.stop();
+
+        String[] names = directory.toFile().list();
+        Arrays.sort(names);
+        assertEquals(2, names.length);
+        assertEquals(0, AuditSegmentFormat.sequence(names[0]));
+        assertEquals(1, AuditSegmentFormat.sequence(names[1]));
+        List<AuditEvent> events = AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, events.size());
+        assertEquals(AuditEvent.Type.TASK_DELETED, events.get(1).getType());
+    }
+
+    // Test an idle writer is woken by a new event rather than waiting out its park
+    @Test
+    public void testRecord_WakesIdleWriter() throws Exception {
+        AuditLog auditLog = new AuditLog(true, directory.toString(), 4096, Long.MAX_VALUE / 2,
+                Long.MAX_VALUE, Long.MAX_VALUE / 2, 1000, 1, 1000);
+        auditLog.start();
+        try {
+            Thread.sleep(50);
+            auditLog.record(AuditEvent.Type.TASK_UPDATED, 1L, null);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (AuditLogReader.read(directory, Long.MIN_VALUE, Long.MAX_VALUE).isEmpty()) {
+                assertTrue("Event not written", System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+        } finally {
+            auditLog.stop();
+        }
+    }
+
+    private AuditLog newAuditLog(int segmentBytes, long retentionBytes) {
+        return new AuditLog(true, directory.toString(), segmentBytes, Long.MAX_VALUE / 2,
+                retentionBytes, Long.MAX_VALUE / 2, 1000, 100, 1000);
+    }
+}
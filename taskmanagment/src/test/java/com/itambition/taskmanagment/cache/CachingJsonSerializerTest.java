@@ -0,0 +1,114 @@
+package com.itambition.taskmanagment.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The caching serializers against the embedded database: only entities
+ * loaded from it are cached
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+public class CachingJsonSerializerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JsonFragmentCache cache;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private User owner;
+
+    @Before
+    public void setUp() {
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        User user = new User();
+        user.setUserName("fragment-owner");
+        user.setPassword("password");
+        user.setEmail("owner@example.com");
+        owner = usersRepository.save(user);
+        cache.invalidate(User.class, owner.getId());
+    }
+
+    // Test the response to a POST that names the owner by id alone doesn't leak into later reads
+    @Test
+    public void testPostThenGet_PartialUserNotCached() throws Exception {
+        String body = "{\"name\":\"Posted\",\"user\":{\"id\":" + owner.getId() + "}}";
+        String created = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long taskId = objectMapper.readTree(created).get("id").asLong();
+        assertNull(cache.get(Task.class, taskId));
+        assertNull(cache.get(User.class, owner.getId()));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/users/{userId}/tasks", owner.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(taskId))
+                    .andExpect(jsonPath("$[0].user.userName").value("fragment-owner"))
+                    .andExpect(jsonPath("$[0].user.email").value("owner@example.com"));
+        }
+        assertNotNull(cache.get(Task.class, taskId));
+        assertNotNull(cache.get(User.class, owner.getId()));
+    }
+
+    // Test an entity loaded before an invalidation isn't cached when rendered after it
+    @Test
+    public void testLoadedBeforeInvalidation_NotCached() throws Exception {
+        User loaded = usersRepository.findById(owner.getId()).get();
+        cache.invalidate(User.class, owner.getId());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(loaded));
+        assertEquals("fragment-owner", json.get("userName").asText());
+        assertNull(cache.get(User.class, owner.getId()));
+
+        objectMapper.writeValueAsString(usersRepository.findById(owner.getId()).get());
+        assertNotNull(cache.get(User.class, owner.getId()));
+    }
+
+    // Test an entity built in memory is rendered as is and never cached
+    @Test
+    public void testUnloadedEntity_Bypassed() throws Exception {
+        User partial = new User();
+        partial.setId(owner.getId());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(Collections.singletonList(partial)));
+        assertTrue(json.get(0).get("userName").isNull());
+        assertNull(cache.get(User.class, owner.getId()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.itambition.taskmanagment.cache;
+
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JsonFragmentCacheTest {
+
+    // Test fragments are served until their entity is invalidated
+    @Test
+    public void testPutGetInvalidate() {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 1024, 60000);
+        cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+
+        assertEquals("{\"id\":1}", cache.get(Task.class, 1L).getValue());
+        assertNull(cache.get(User.class, 1L));
+
+        cache.invalidate(Task.class, 1L);
+        assertNull(cache.get(Task.class, 1L));
+        assertEquals(1.0 / 3, cache.getHitRatio(), 0.0001);
+    }
+
+    // Test a fragment rendered before an invalidation is not stored
+    @Test
+    public void testPut_SkippedAfterConcurrentInvalidation() {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 1024, 60000);
+        long generation = cache.generation();
+        cache.invalidateAll(Task.class, Arrays.asList(1L, 2L));
+
+        cache.put(Task.class, 1L, "{\"id\":1}", generation);
+        assertNull(cache.get(Task.class, 1L));
+    }
+
+    // Test the oldest fragments are evicted once the byte budget is exceeded
+    @Test
+    public void testEviction_ByteBudget() {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 40, 60000);
+        cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+        cache.put(Task.class, 2L, "{\"id\":2}", cache.generation());
+        cache.put(Task.class, 3L, "{\"id\":3}", cache.generation());
+
+        assertNull(cache.get(Task.class, 1L));
+        assertNotNull(cache.get(Task.class, 3L));
+    }
+
+    // Test re-putting and invalidating one key keeps a single eviction node
+    @Test
+    public void testRePutAndInvalidate_StaysBounded() {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 1024, 60000);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+            cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+            assertEquals(1, cache.trackedEntries());
+            cache.invalidate(Task.class, 1L);
+            assertEquals(0, cache.trackedEntries());
+        }
+    }
+
+    // Test a re-put entry counts as the youngest, so the oldest other entry is evicted
+    @Test
+    public void testEviction_RePutEntryIsYoungest() {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 40, 60000);
+        cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+        cache.put(Task.class, 2L, "{\"id\":2}", cache.generation());
+        cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+        cache.put(Task.class, 3L, "{\"id\":3}", cache.generation());
+
+        assertNotNull(cache.get(Task.class, 1L));
+        assertNull(cache.get(Task.class, 2L));
+        assertNotNull(cache.get(Task.class, 3L));
+        assertEquals(2, cache.trackedEntries());
+    }
+
+    // Test an expired entry is dropped when seen instead of holding its bytes
+    @Test
+    public void testExpiredEntry_Removed() throws Exception {
+        JsonFragmentCache cache = new JsonFragmentCache(true, 1024, 1);
+        cache.put(Task.class, 1L, "{\"id\":1}", cache.generation());
+        Thread.sleep(5);
+
+        assertNull(cache.get(Task.class, 1L));
+        assertEquals(0, cache.trackedEntries());
+    }
+}
@@ -0,0 +1,102 @@
+package com.itambition.taskmanagment.limiter;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final String GET = "GET /api/tasks/{id}";
+    private static final String BULK = "POST /api/tasks/bulk-update";
+
+    // Test requests over the limit are rejected and counted
+    @Test
+    public void testTryAcquire_RejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 50, 0.9, 100);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(GET, System.nanoTime(), FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    // Test repeated slowdowns of a route shrink the limit down to the minimum
+    @Test
+    public void testRelease_SlowLatencyBacksOff() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 100, 2.0, 50, 0.5, 100);
+        limiter.tryAcquire();
+        limiter.release(GET, System.nanoTime(), FAST, false);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(GET, System.nanoTime(), SLOW, false);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    // Test slow samples from requests admitted before a backoff don't shrink the limit again
+    @Test
+    public void testRelease_BacksOffOncePerCongestionEvent() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 1, 100, 2.0, 50, 0.5, 100);
+        limiter.tryAcquire();
+        limiter.release(GET, System.nanoTime(), FAST, false);
+
+        long admitted = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 8; i++) {
+            limiter.release(GET, admitted, SLOW, false);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    // Test an endpoint that is always slow is judged against its own baseline
+    @Test
+    public void testRelease_SlowRouteJudgedAgainstItself() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0, 50, 0.5, 100);
+        limiter.tryAcquire();
+        limiter.release(GET, System.nanoTime(), FAST, false);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(BULK, System.nanoTime(), SLOW, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    // Test fast responses under load grow the limit
+    @Test
+    public void testRelease_FastLatencyUnderLoadGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100, 2.0, 50, 0.9, 1000);
+
+        for (int round = 0; round < 50; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(GET, System.nanoTime(), FAST, false);
+            }
+        }
+        assertTrue(limiter.getLimit() > 4);
+    }
+
+    // Test requests reported as overloaded count as congestion
+    @Test
+    public void testRelease_OverloadBacksOff() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0, 50, 0.5, 100);
+        limiter.tryAcquire();
+        limiter.release(GET, System.nanoTime(), FAST, true);
+
+        assertEquals(5, limiter.getLimit());
+    }
+}
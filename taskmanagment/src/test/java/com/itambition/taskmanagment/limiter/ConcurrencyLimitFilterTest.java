@@ -0,0 +1,71 @@
+package com.itambition.taskmanagment.limiter;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    // Test a request over the limit is shed with 503 and Retry-After without reaching the handler
+    @Test
+    public void testDoFilter_OverLimitShedWithRetryAfter() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        boolean[] reached = new boolean[1];
+
+        // The first request holds the only slot while the second arrives
+        filter.doFilter(request("/api/tasks"), new MockHttpServletResponse(), (request, response) ->
+                filter.doFilter(request("/api/tasks"), shed, (nested, nestedResponse) -> reached[0] = true));
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader(HttpHeaders.RETRY_AFTER));
+        assertFalse(reached[0]);
+        assertEquals(1, filter.getLimiter().getRejected());
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    // Test an application error is not taken as overload, a 503 from downstream is
+    @Test
+    public void testDoFilter_OnlyOverloadStatusesBackOff() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(10);
+
+        filter.doFilter(request("/api/tasks"), new MockHttpServletResponse(), status(500));
+        assertEquals(10, filter.getLimiter().getLimit());
+
+        filter.doFilter(request("/api/tasks"), new MockHttpServletResponse(), status(503));
+        assertEquals(5, filter.getLimiter().getLimit());
+    }
+
+    // Test requests outside /api are not limited
+    @Test
+    public void testDoFilter_NonApiNotLimited() throws Exception {
+        ConcurrencyLimitFilter filter = newFilter(1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/tasks"), new MockHttpServletResponse(), (request, ignored) ->
+                filter.doFilter(request("/health"), response, status(200)));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, filter.getLimiter().getRejected());
+    }
+
+    private static ConcurrencyLimitFilter newFilter(int limit) {
+        return new ConcurrencyLimitFilter(true, limit, 1, limit, 2.0, 50, 0.5, 100);
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, uri);
+        return request;
+    }
+
+    private static FilterChain status(int status) {
+        return (request, response) -> ((MockHttpServletResponse) response).setStatus(status);
+    }
+}
@@ -0,0 +1,79 @@
+package com.itambition.taskmanagment.monitoring;
+
+import jdk.jfr.Recording;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FlightRecordingAnalyzerTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("taskmanagment", ".jfr");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // Test repository calls are attributed to the request running on the same thread
+    @Test
+    public void testAnalyze_GroupsPerEndpoint() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(RequestEvent.NAME).withThreshold(Duration.ZERO);
+            recording.enable(RepositoryCallEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+
+            request("GET", "/api/users/{id}", "usersRepository.findById");
+            request("GET", "/api/users/{id}", "usersRepository.findById");
+            request("GET", "/api/tasks/search", "taskRepository.findByDescriptionContainingIgnoreCase");
+            // Outside of any request, must not be attributed
+            repositoryCall("taskRepository.findIdsByDeadlineBefore");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, FlightRecordingAnalyzer.EndpointSummary> summaries = FlightRecordingAnalyzer.analyze(file);
+
+        assertEquals(2, summaries.size());
+        FlightRecordingAnalyzer.EndpointSummary users = summaries.get("GET /api/users/{id}");
+        assertEquals(2, users.getRequests());
+        assertEquals(2, users.getStatements());
+        assertTrue(users.getRepositoryNanos() > 0);
+        assertTrue(users.getRepositoryNanos() <= users.getTotalNanos());
+        assertEquals(1, summaries.get("GET /api/tasks/search").getRequests());
+    }
+
+    private static void request(String method, String endpoint, String operation) throws InterruptedException {
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        repositoryCall(operation);
+        event.end();
+        event.method = method;
+        event.endpoint = endpoint;
+        event.status = 200;
+        event.statements = 1;
+        event.commit();
+    }
+
+    private static void repositoryCall(String operation) throws InterruptedException {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        Thread.sleep(2);
+        event.end();
+        event.operation = operation;
+        event.statements = 1;
+        event.commit();
+    }
+}
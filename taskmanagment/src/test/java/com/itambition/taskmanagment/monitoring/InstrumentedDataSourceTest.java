@@ -0,0 +1,31 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+
+import static org.mockito.Mockito.*;
+
+public class InstrumentedDataSourceTest {
+
+    // Test closing the wrapper shuts down the wrapped pool
+    @Test
+    public void testClose_ClosesTarget() throws Exception {
+        DataSource pool = mock(DataSource.class, withSettings().extraInterfaces(Closeable.class));
+
+        new InstrumentedDataSource(pool, 500).close();
+
+        verify((Closeable) pool).close();
+    }
+
+    // Test a target that cannot be closed is left alone
+    @Test
+    public void testClose_NonCloseableTarget() throws Exception {
+        DataSource target = mock(DataSource.class);
+
+        new InstrumentedDataSource(target, 500).close();
+
+        verifyZeroInteractions(target);
+    }
+}
@@ -0,0 +1,38 @@
+package com.itambition.taskmanagment.monitoring;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MockMvc matchers asserting the JDBC cost of a request, e.g.
+ * {@code .andExpect(QueryBudget.atMostStatements(2))}.
+ * Requires {@link QueryStatsFilter} in the filter chain.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher atMostStatements(int max) {
+        return result -> {
+            QueryStats stats = stats(result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE));
+            assertTrue("Query budget of " + max + " statements exceeded: " + stats,
+                    stats.getStatementCount() <= max);
+        };
+    }
+
+    public static ResultMatcher atMostRows(long max) {
+        return result -> {
+            QueryStats stats = stats(result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE));
+            assertTrue("Row budget of " + max + " rows exceeded: " + stats,
+                    stats.getRowCount() <= max);
+        };
+    }
+
+    private static QueryStats stats(Object attribute) {
+        assertNotNull("No QueryStats on the request; is QueryStatsFilter registered?", attribute);
+        return (QueryStats) attribute;
+    }
+}
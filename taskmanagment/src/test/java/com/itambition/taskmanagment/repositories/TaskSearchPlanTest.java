@@ -0,0 +1,175 @@
+package com.itambition.taskmanagment.repositories;
+
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Explain-plan regression test of the filtered task search on H2: each query
+ * shape must stay on the index it was planned for and use the index order
+ * instead of sorting.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.flyway.enabled=false")
+public class TaskSearchPlanTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private static boolean indexesCreated;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (!indexesCreated) {
+            // Indexes of init-scripts/01-init.sql and of the Flyway migration
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tasks_user_id ON tasks(user_id)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tasks_deadline ON tasks(deadline)");
+            new ResourceDatabasePopulator(new ClassPathResource("db/migration/V3__add_task_search_indexes.sql"))
+                    .execute(dataSource);
+            indexesCreated = true;
+        }
+
+        for (int u = 0; u < 20; u++) {
+            User user = new User();
+            user.setUserName("planner" + u);
+            user.setPassword("password");
+            user = usersRepository.save(user);
+            if (owner == null) {
+                owner = user;
+            }
+            for (int i = 0; i < 25; i++) {
+                Task task = new Task();
+                task.setName("Task " + u + "-" + i);
+                task.setDescription(i % 5 == 0 ? "Quarterly report" : "Routine work");
+                task.setDeadline(START.plusDays(i % 10).plusHours(u));
+                task.setUser(user);
+                taskRepository.save(task);
+            }
+        }
+        taskRepository.flush();
+    }
+
+    // Owner, deadline range and text: one range scan on the owner composite index, no sort
+    @Test
+    public void testPlan_OwnerDeadlineAndText() {
+        TaskSearchCriteria criteria = new TaskSearchCriteria();
+        criteria.setUserId(owner.getId());
+        criteria.setDeadlineFrom(START);
+        criteria.setDeadlineTo(START.plusDays(7));
+        criteria.setText("report");
+
+        String plan = explain(criteria);
+
+        assertTrue(plan, plan.contains("IDX_TASKS_USER_DEADLINE"));
+        assertTrue(plan, plan.contains("INDEX SORTED"));
+    }
+
+    // Deadline range only: the deadline composite index in order
+    @Test
+    public void testPlan_DeadlineRange() {
+        TaskSearchCriteria criteria = new TaskSearchCriteria();
+        criteria.setDeadlineFrom(START.plusDays(2));
+        criteria.setDeadlineTo(START.plusDays(3));
+
+        String plan = explain(criteria);
+
+        assertTrue(plan, plan.contains("IDX_TASKS_DEADLINE_ID"));
+        assertTrue(plan, plan.contains("INDEX SORTED"));
+    }
+
+    // Text only: walk the deadline index in order rather than sorting all matches
+    @Test
+    public void testPlan_TextOnly() {
+        TaskSearchCriteria criteria = new TaskSearchCriteria();
+        criteria.setText("report");
+
+        String plan = explain(criteria);
+
+        assertTrue(plan, plan.contains("INDEX SORTED"));
+    }
+
+    // Owner with a keyset cursor stays on the owner composite index
+    @Test
+    public void testPlan_OwnerAfterCursor() {
+        TaskSearchCriteria criteria = new TaskSearchCriteria();
+        criteria.setUserId(owner.getId());
+        criteria.setAfterDeadline(START.plusDays(3));
+        criteria.setAfterId(1L);
+
+        String plan = explain(criteria);
+
+        assertTrue(plan, plan.contains("IDX_TASKS_USER_DEADLINE"));
+        assertTrue(plan, plan.contains("INDEX SORTED"));
+    }
+
+    // Test keyset pages follow each other without gaps or repeats
+    @Test
+    public void testSearchIds_KeysetPaging() {
+        TaskSearchCriteria criteria = new TaskSearchCriteria();
+        criteria.setUserId(owner.getId());
+        criteria.setText("routine");
+        criteria.setLimit(7);
+
+        List<Long> all = new ArrayList<>();
+        List<Long> page = taskRepository.searchIds(criteria);
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            Task last = taskRepository.findById(page.get(page.size() - 1)).get();
+            criteria.setAfterDeadline(last.getDeadline());
+            criteria.setAfterId(last.getId());
+            page = taskRepository.searchIds(criteria);
+        }
+
+        assertEquals(20, all.size());
+        assertEquals(20, all.stream().distinct().count());
+        LocalDateTime previous = null;
+        for (Long id : all) {
+            Task task = taskRepository.findById(id).get();
+            assertEquals(owner.getId(), task.getUser().getId());
+            assertTrue(previous == null || !task.getDeadline().isBefore(previous));
+            previous = task.getDeadline();
+        }
+    }
+
+    private String explain(TaskSearchCriteria criteria) {
+        TaskSearchQuery query = TaskSearchQuery.plan(criteria);
+        Object[] parameters = query.getParameters().stream()
+                .map(value -> value instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) value) : value)
+                .toArray();
+        return jdbcTemplate.queryForObject("EXPLAIN " + query.getSql(), String.class, parameters)
+                .toUpperCase(Locale.ROOT);
+    }
+}
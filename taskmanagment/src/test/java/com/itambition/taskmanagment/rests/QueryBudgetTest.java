@@ -0,0 +1,105 @@
+package com.itambition.taskmanagment.rests;
+
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static com.itambition.taskmanagment.monitoring.QueryBudget.atMostStatements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Query budgets for the controller endpoints against the embedded database.
+ * A budget failure usually means a new N+1 select.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+public class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private User firstUser;
+
+    private Task firstTask;
+
+    @Before
+    public void setUp() {
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUserName("budget" + i);
+            user.setPassword("password");
+            user = usersRepository.save(user);
+            if (firstUser == null) {
+                firstUser = user;
+            }
+
+            Task task = new Task();
+            task.setName("Task " + i);
+            task.setDescription("Budget task " + i);
+            task.setDeadline(LocalDateTime.now().plusDays(i));
+            task.setUser(user);
+            task = taskRepository.save(task);
+            if (firstTask == null) {
+                firstTask = task;
+            }
+        }
+    }
+
+    // Search must load the tasks' users with the tasks, not one select per user
+    @Test
+    public void testSearchByDescription_Budget() throws Exception {
+        mockMvc.perform(get("/api/tasks/search").param("description", "budget"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(atMostStatements(2));
+    }
+
+    @Test
+    public void testGetUserByUserName_Budget() throws Exception {
+        mockMvc.perform(get("/api/users/username/{username}", "budget1"))
+                .andExpect(status().isOk())
+                .andExpect(atMostStatements(1));
+    }
+
+    @Test
+    public void testGetTasksOfUser_Budget() throws Exception {
+        mockMvc.perform(get("/api/users/{userId}/tasks", firstUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(atMostStatements(2));
+    }
+
+    // Multi-get loads the tasks and their users with one IN query
+    @Test
+    public void testGetTasksByIds_Budget() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("ids", firstTask.getId() + ",-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.length()").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(-1))
+                .andExpect(atMostStatements(1));
+    }
+}
@@ -0,0 +1,267 @@
+package com.itambition.taskmanagment.rests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateRequest;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskArchiveRepository;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import com.itambition.taskmanagment.services.TaskArchiver;
+import com.itambition.taskmanagment.services.TaskVersionCounter;
+import com.itambition.taskmanagment.services.TasksServices;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.itambition.taskmanagment.monitoring.QueryBudget.atMostStatements;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Delta sync against the embedded database: writes through TasksServices
+ * and reads of GET /api/users/{userId}/tasks/changes
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+public class TaskChangesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TasksServices tasksServices;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private TaskArchiver taskArchiver;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private User otherOwner;
+
+    @Before
+    public void setUp() {
+        taskTombstoneRepository.deleteAll();
+        taskArchiveRepository.deleteAll();
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        owner = usersRepository.save(user("sync-owner"));
+        otherOwner = usersRepository.save(user("sync-other"));
+    }
+
+    // Test each sync returns only what changed after the previous watermark
+    @Test
+    public void testChanges_UpdatesAndRemovals() throws Exception {
+        Task kept = tasksServices.addTask(task("Kept", owner));
+        Task removed = tasksServices.addTask(task("Removed", owner));
+        tasksServices.addTask(task("Someone else's", otherOwner));
+
+        JsonNode first = changes(owner, 0);
+        assertEquals(2, first.get("changed").size());
+        assertEquals(0, first.get("deleted").size());
+        long watermark = first.get("watermark").asLong();
+
+        kept.setName("Kept, renamed");
+        tasksServices.updateTask(kept);
+        tasksServices.removeTasks(Collections.singletonList(removed.getId()));
+
+        JsonNode second = changes(owner, watermark);
+        assertEquals(1, second.get("changed").size());
+        assertEquals("Kept, renamed", second.get("changed").get(0).get("name").asText());
+        assertEquals(removed.getId().longValue(), second.get("deleted").get(0).asLong());
+        assertTrue(second.get("watermark").asLong() > watermark);
+
+        JsonNode third = changes(owner, second.get("watermark").asLong());
+        assertEquals(0, third.get("changed").size());
+        assertEquals(0, third.get("deleted").size());
+    }
+
+    // Test a bulk owner change removes the task from one list and adds it to the other
+    @Test
+    public void testChanges_BulkOwnerChange() throws Exception {
+        Task moved = tasksServices.addTask(task("Moved", owner));
+        long watermark = changes(owner, 0).get("watermark").asLong();
+
+        BulkTaskUpdateRequest request = new BulkTaskUpdateRequest();
+        BulkTaskUpdateRequest.Filter filter = new BulkTaskUpdateRequest.Filter();
+        filter.setIds(Collections.singletonList(moved.getId()));
+        BulkTaskUpdateRequest.Operation operation = new BulkTaskUpdateRequest.Operation();
+        operation.setType(BulkTaskUpdateRequest.OperationType.SET_OWNER);
+        operation.setUserId(otherOwner.getId());
+        request.setFilter(filter);
+        request.setOperation(operation);
+        tasksServices.bulkUpdate(request);
+
+        JsonNode previousOwner = changes(owner, watermark);
+        assertEquals(0, previousOwner.get("changed").size());
+        assertEquals(moved.getId().longValue(), previousOwner.get("deleted").get(0).asLong());
+
+        JsonNode newOwner = changes(otherOwner, watermark);
+        assertEquals(moved.getId().longValue(), newOwner.get("changed").get(0).get("id").asLong());
+    }
+
+    // Test a deadline shift and a field update each report exactly the tasks they wrote
+    @Test
+    public void testChanges_BulkShiftAndSetField() throws Exception {
+        Task shifted = task("Shifted", owner);
+        shifted.setDeadline(LocalDateTime.of(2030, 1, 1, 12, 0));
+        shifted = tasksServices.addTask(shifted);
+        Task renamed = tasksServices.addTask(task("Renamed", owner));
+        long watermark = changes(owner, 0).get("watermark").asLong();
+
+        BulkTaskUpdateRequest.Operation shift = new BulkTaskUpdateRequest.Operation();
+        shift.setType(BulkTaskUpdateRequest.OperationType.SHIFT_DEADLINE);
+        shift.setDuration(Duration.ofDays(2));
+        tasksServices.bulkUpdate(bulkRequest(Collections.singletonList(shifted.getId()), shift));
+
+        JsonNode afterShift = changes(owner, watermark);
+        assertEquals(1, afterShift.get("changed").size());
+        assertEquals(shifted.getId().longValue(), afterShift.get("changed").get(0).get("id").asLong());
+        assertEquals(LocalDateTime.of(2030, 1, 3, 12, 0),
+                LocalDateTime.parse(afterShift.get("changed").get(0).get("deadline").asText()));
+        watermark = afterShift.get("watermark").asLong();
+
+        BulkTaskUpdateRequest.Operation setField = new BulkTaskUpdateRequest.Operation();
+        setField.setType(BulkTaskUpdateRequest.OperationType.SET_FIELD);
+        setField.setField("name");
+        setField.setValue("Renamed in bulk");
+        // The other owner's task is filtered out, not stamped
+        Task foreign = tasksServices.addTask(task("Foreign", otherOwner));
+        BulkTaskUpdateRequest request = bulkRequest(Arrays.asList(renamed.getId(), foreign.getId()), setField);
+        request.getFilter().setUserId(owner.getId());
+        assertEquals(1, tasksServices.bulkUpdate(request).getUpdated());
+
+        JsonNode afterSetField = changes(owner, watermark);
+        assertEquals(1, afterSetField.get("changed").size());
+        assertEquals("Renamed in bulk", afterSetField.get("changed").get(0).get("name").asText());
+        assertEquals(1, changes(otherOwner, watermark).get("changed").size());
+        assertEquals("Foreign", changes(otherOwner, watermark).get("changed").get(0).get("name").asText());
+    }
+
+    // Test an archived task leaves its owner's list like a deleted one
+    @Test
+    public void testChanges_ArchivedTaskDeleted() throws Exception {
+        Task expired = task("Expired", owner);
+        expired.setDeadline(LocalDateTime.now().minusDays(400));
+        expired = tasksServices.addTask(expired);
+        Task current = tasksServices.addTask(task("Current", owner));
+        long watermark = changes(owner, 0).get("watermark").asLong();
+
+        taskArchiver.archiveExpiredTasks();
+
+        JsonNode afterArchive = changes(owner, watermark);
+        assertEquals(0, afterArchive.get("changed").size());
+        assertEquals(1, afterArchive.get("deleted").size());
+        assertEquals(expired.getId().longValue(), afterArchive.get("deleted").get(0).asLong());
+        assertTrue(taskRepository.findById(current.getId()).isPresent());
+    }
+
+    // Test a client whose watermark predates compacted tombstones is told to resync
+    @Test
+    public void testChanges_CompactedTombstonesRequireResync() throws Exception {
+        Task removed = tasksServices.addTask(task("Removed", owner));
+        long watermark = changes(owner, 0).get("watermark").asLong();
+        tasksServices.removeTasks(Collections.singletonList(removed.getId()));
+        long afterRemoval = changes(owner, watermark).get("watermark").asLong();
+
+        // What the compactor does once the tombstone is past retention
+        transactionTemplate.execute(status -> {
+            taskVersionCounter.compactUpTo(afterRemoval);
+            return null;
+        });
+        taskTombstoneRepository.deleteAll();
+
+        mockMvc.perform(get("/api/users/{userId}/tasks/changes", owner.getId())
+                .param("since", String.valueOf(watermark)))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.resyncRequired").value(true));
+        JsonNode resync = changes(owner, 0);
+        assertEquals(0, resync.get("changed").size());
+        assertFalse(resync.get("resyncRequired").asBoolean());
+        assertEquals(0, changes(owner, afterRemoval).get("deleted").size());
+    }
+
+    // The existence check, the counter, the changed rows and the tombstones
+    @Test
+    public void testChanges_Budget() throws Exception {
+        tasksServices.addTask(task("Budget", owner));
+
+        mockMvc.perform(get("/api/users/{userId}/tasks/changes", owner.getId()).param("since", "0"))
+                .andExpect(status().isOk())
+                .andExpect(atMostStatements(4));
+    }
+
+    private JsonNode changes(User user, long since) throws Exception {
+        String body = mockMvc.perform(get("/api/users/{userId}/tasks/changes", user.getId())
+                .param("since", String.valueOf(since)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static BulkTaskUpdateRequest bulkRequest(List<Long> ids,
+                                                     BulkTaskUpdateRequest.Operation operation) {
+        BulkTaskUpdateRequest request = new BulkTaskUpdateRequest();
+        BulkTaskUpdateRequest.Filter filter = new BulkTaskUpdateRequest.Filter();
+        filter.setIds(ids);
+        request.setFilter(filter);
+        request.setOperation(operation);
+        return request;
+    }
+
+    private static User user(String userName) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassword("password");
+        return user;
+    }
+
+    private static Task task(String name, User owner) {
+        Task task = new Task();
+        task.setName(name);
+        task.setDescription(name);
+        task.setDeadline(LocalDateTime.now().plusDays(1));
+        task.setUser(owner);
+        return task;
+    }
+}
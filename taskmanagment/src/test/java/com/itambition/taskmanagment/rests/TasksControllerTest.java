@@ -1,6 +1,11 @@
 package com.itambition.taskmanagment.rests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateRequest;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateResult;
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskSearchCriteria;
+import com.itambition.taskmanagment.dto.TaskSearchResult;
 import com.itambition.taskmanagment.models.Task;
 import com.itambition.taskmanagment.models.User;
 import com.itambition.taskmanagment.services.TasksServices;
@@ -28,6 +33,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -172,6 +178,122 @@ public class TasksControllerTest {
                 .andExpect(jsonPath("$.content[0].id").value(testTask.getId()))
                 .andExpect(jsonPath("$.content[0].name").value(testTask.getName()));
     }
-}
-   
 
+    // Test searching the archive of past-deadline tasks
+    @Test
+    public void testSearchByDescription_Archived() throws Exception {
+        testTask.setArchived(true);
+        Page<Task> taskPage = new PageImpl<>(Collections.singletonList(testTask));
+        when(tasksServices.searchArchivedByDescription(eq("Test"), any(Pageable.class))).thenReturn(taskPage);
+
+        mockMvc.perform(get("/api/tasks/search")
+                .param("description", "Test")
+                .param("archived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(testTask.getId()))
+                .andExpect(jsonPath("$.content[0].archived").value(true));
+
+        verify(tasksServices, never()).searchByDescription(any(), any());
+    }
+
+    // Test loading tasks by an id list
+    @Test
+    public void testGetTasksByIds_Success() throws Exception {
+        when(tasksServices.getTasksByIds(Arrays.asList(1L, 42L)))
+                .thenReturn(new MultiGetResult<>(Collections.singletonList(testTask), Collections.singletonList(42L)));
+
+        mockMvc.perform(get("/api/tasks").param("ids", "1,42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].id").value(testTask.getId()))
+                .andExpect(jsonPath("$.missing[0]").value(42));
+    }
+
+    @Test
+    public void testGetTasksByIds_TooMany() throws Exception {
+        String ids = String.join(",", Collections.nCopies(1001, "1"));
+
+        mockMvc.perform(get("/api/tasks").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        verify(tasksServices, never()).getTasksByIds(anyList());
+    }
+
+    // Test the filtered search passes all criteria and returns the next cursor
+    @Test
+    public void testSearchTasks_Success() throws Exception {
+        when(tasksServices.searchTasks(any(TaskSearchCriteria.class), eq(null)))
+                .thenReturn(new TaskSearchResult(Collections.singletonList(testTask), "2024-01-01T10:00_1"));
+
+        mockMvc.perform(get("/api/tasks/filter")
+                .param("userId", "1")
+                .param("deadlineFrom", "2024-01-01T00:00:00")
+                .param("deadlineTo", "2024-01-08T00:00:00")
+                .param("text", "report")
+                .param("direction", "desc")
+                .param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(testTask.getId()))
+                .andExpect(jsonPath("$.next").value("2024-01-01T10:00_1"));
+
+        verify(tasksServices).searchTasks(argThat((TaskSearchCriteria criteria) ->
+                criteria.getUserId() == 1L
+                        && criteria.getDeadlineFrom().equals(LocalDateTime.of(2024, 1, 1, 0, 0))
+                        && criteria.getDeadlineTo().equals(LocalDateTime.of(2024, 1, 8, 0, 0))
+                        && criteria.getText().equals("report")
+                        && criteria.isDescending()
+                        && criteria.getLimit() == 100), eq(null));
+    }
+
+    @Test
+    public void testSearchTasks_InvalidCursor() throws Exception {
+        when(tasksServices.searchTasks(any(TaskSearchCriteria.class), eq("garbage")))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/tasks/filter").param("after", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Test a bulk owner reassignment
+    @Test
+    public void testBulkUpdate_Success() throws Exception {
+        when(tasksServices.bulkUpdate(any(BulkTaskUpdateRequest.class))).thenReturn(new BulkTaskUpdateResult(2500, 3));
+
+        mockMvc.perform(post("/api/tasks/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"filter\":{\"userId\":1},\"operation\":{\"type\":\"SET_OWNER\",\"userId\":2}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2500))
+                .andExpect(jsonPath("$.chunks").value(3));
+
+        verify(tasksServices).bulkUpdate(argThat(request -> request.getFilter().getUserId() == 1L
+                && request.getOperation().getType() == BulkTaskUpdateRequest.OperationType.SET_OWNER
+                && request.getOperation().getUserId() == 2L));
+    }
+
+    // Test a bulk deadline shift carries the duration
+    @Test
+    public void testBulkUpdate_ShiftDeadline() throws Exception {
+        when(tasksServices.bulkUpdate(any(BulkTaskUpdateRequest.class))).thenReturn(new BulkTaskUpdateResult(10, 1));
+
+        mockMvc.perform(post("/api/tasks/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"filter\":{\"ids\":[1,2]},\"operation\":{\"type\":\"SHIFT_DEADLINE\",\"duration\":\"P7D\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(10));
+
+        verify(tasksServices).bulkUpdate(argThat(request ->
+                request.getOperation().getDuration().toDays() == 7));
+    }
+
+    // Test an invalid bulk update is rejected
+    @Test
+    public void testBulkUpdate_BadRequest() throws Exception {
+        when(tasksServices.bulkUpdate(any(BulkTaskUpdateRequest.class)))
+                .thenThrow(new IllegalArgumentException("Bulk update requires at least one filter criterion"));
+
+        mockMvc.perform(post("/api/tasks/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"operation\":{\"type\":\"SET_OWNER\",\"userId\":2}}"))
+                .andExpect(status().isBadRequest());
+    }
+}
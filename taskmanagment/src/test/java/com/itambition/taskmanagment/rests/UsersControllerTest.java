@@ -1,6 +1,8 @@
 package com.itambition.taskmanagment.rests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import com.itambition.taskmanagment.dto.TaskChanges;
 import com.itambition.taskmanagment.models.Task;
 import com.itambition.taskmanagment.models.User;
 import com.itambition.taskmanagment.services.UsersServices;
@@ -11,6 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,6 +26,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -119,6 +124,71 @@ public class UsersControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    public void testGetUsersPage_Success() throws Exception {
+        when(usersServices.getAllUsers(any(Pageable.class))).thenReturn(new PageImpl<>(Arrays.asList(testUser)));
+
+        mockMvc.perform(get("/api/users").param("page", "0").param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].userName").value("testuser"));
+
+        verify(usersServices, never()).getAllUsers();
+        verify(usersServices).getAllUsers(argThat((Pageable pageable) -> pageable.getPageSize() == 100));
+    }
+
+    @Test
+    public void testGetUsersByIds_Success() throws Exception {
+        when(usersServices.getUsersByIds(Arrays.asList(7L, 1L)))
+                .thenReturn(new MultiGetResult<>(Arrays.asList(testUser), Arrays.asList(7L)));
+
+        mockMvc.perform(get("/api/users").param("ids", "7,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].userName").value("testuser"))
+                .andExpect(jsonPath("$.missing[0]").value(7));
+
+        verify(usersServices, never()).getAllUsers();
+    }
+
+    @Test
+    public void testGetUsersByIds_WithPageParam() throws Exception {
+        when(usersServices.getUsersByIds(Arrays.asList(1L)))
+                .thenReturn(new MultiGetResult<>(Arrays.asList(testUser), Collections.emptyList()));
+
+        mockMvc.perform(get("/api/users").param("ids", "1").param("page", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].userName").value("testuser"));
+
+        verify(usersServices, never()).getAllUsers(any(Pageable.class));
+    }
+
+    @Test
+    public void testGetUsersPage_InvalidSize() throws Exception {
+        mockMvc.perform(get("/api/users").param("page", "0").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verify(usersServices, never()).getAllUsers(any(Pageable.class));
+    }
+
+    @Test
+    public void testAutocompleteUserNames_Success() throws Exception {
+        when(usersServices.autocompleteUserNames("te", 10)).thenReturn(Arrays.asList("testuser", "tester"));
+
+        mockMvc.perform(get("/api/users/autocomplete").param("prefix", "te"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("testuser"))
+                .andExpect(jsonPath("$[1]").value("tester"));
+    }
+
+    @Test
+    public void testAutocompleteUserNames_NoContent() throws Exception {
+        when(usersServices.autocompleteUserNames("zz", 10)).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/users/autocomplete").param("prefix", "zz"))
+                .andExpect(status().isNoContent());
+    }
+
     @Test
     public void testGetUserById_Success() throws Exception {
         when(usersServices.getUserById(1L)).thenReturn(Optional.of(testUser));
@@ -220,4 +290,40 @@ public class UsersControllerTest {
         mockMvc.perform(get("/api/users/1/tasks"))
                 .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    public void testGetTasksOfUser_IncludeArchived() throws Exception {
+        Task archivedTask = new Task();
+        archivedTask.setId(2L);
+        archivedTask.setName("Archived Task");
+        archivedTask.setArchived(true);
+        when(usersServices.getTasksOfUser(1L, true)).thenReturn(Arrays.asList(testTask, archivedTask));
+
+        mockMvc.perform(get("/api/users/1/tasks").param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].archived").value(false))
+                .andExpect(jsonPath("$[1].archived").value(true));
+
+        verify(usersServices, times(1)).getTasksOfUser(1L, true);
+    }
+
+    @Test
+    public void testGetTaskChanges_Success() throws Exception {
+        when(usersServices.getTaskChanges(1L, 5L))
+                .thenReturn(new TaskChanges(Arrays.asList(testTask), Arrays.asList(9L), 12L));
+
+        mockMvc.perform(get("/api/users/{userId}/tasks/changes", 1L).param("since", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].name").value("Test Task"))
+                .andExpect(jsonPath("$.deleted[0]").value(9))
+                .andExpect(jsonPath("$.watermark").value(12));
+    }
+
+    @Test
+    public void testGetTaskChanges_NotFound() throws Exception {
+        when(usersServices.getTaskChanges(999L, 0L)).thenReturn(null);
+
+        mockMvc.perform(get("/api/users/{userId}/tasks/changes", 999L))
+                .andExpect(status().isNotFound());
+    }
 }
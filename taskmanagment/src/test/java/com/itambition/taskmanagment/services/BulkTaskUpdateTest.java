@@ -0,0 +1,265 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.dto.BulkTaskUpdateRequest;
+import com.itambition.taskmanagment.dto.BulkTaskUpdateResult;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bulk task updates against the embedded database, in chunks of two rows
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "taskmanagment.bulk-update.chunk-size=2"
+})
+public class BulkTaskUpdateTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private TasksServices tasksServices;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    private User owner;
+    private User otherOwner;
+
+    // Owner's tasks are due BASE + 0..4 days, the other owner's at BASE + 10 days
+    private List<Task> tasks;
+    private Task otherTask;
+
+    @Before
+    public void setUp() {
+        taskTombstoneRepository.deleteAll();
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        owner = usersRepository.save(user("bulk-owner"));
+        otherOwner = usersRepository.save(user("bulk-other"));
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(tasksServices.addTask(task("Task " + i, owner, BASE.plusDays(i))));
+        }
+        otherTask = tasksServices.addTask(task("Other", otherOwner, BASE.plusDays(10)));
+    }
+
+    // Test a user filter is walked by id across several chunks
+    @Test
+    public void testBulkUpdate_KeysetChunks() {
+        BulkTaskUpdateResult result = tasksServices.bulkUpdate(
+                request(filter(owner.getId(), null, null, null), setField("description", "Bulk")));
+
+        assertEquals(5, result.getUpdated());
+        assertEquals(3, result.getChunks());
+        for (Task task : tasks) {
+            assertEquals("Bulk", reload(task).getDescription());
+        }
+        assertEquals("Other's description", reload(otherTask).getDescription());
+    }
+
+    // Test the deadline bounds, inclusive from and exclusive to, with and without a user
+    @Test
+    public void testBulkUpdate_FilterCombinations() {
+        BulkTaskUpdateResult ranged = tasksServices.bulkUpdate(request(
+                filter(owner.getId(), null, BASE.plusDays(1), BASE.plusDays(3)), setField("name", "Ranged")));
+        assertEquals(2, ranged.getUpdated());
+        assertNames("Task 0", "Ranged", "Ranged", "Task 3", "Task 4");
+
+        BulkTaskUpdateResult from = tasksServices.bulkUpdate(request(
+                filter(null, null, BASE.plusDays(3), null), setField("name", "Late")));
+        assertEquals(3, from.getUpdated());
+        assertNames("Task 0", "Ranged", "Ranged", "Late", "Late");
+        assertEquals("Late", reload(otherTask).getName());
+
+        BulkTaskUpdateResult to = tasksServices.bulkUpdate(request(
+                filter(null, null, null, BASE.plusDays(1)), setField("name", "Early")));
+        assertEquals(1, to.getUpdated());
+        assertNames("Early", "Ranged", "Ranged", "Late", "Late");
+
+        BulkTaskUpdateResult none = tasksServices.bulkUpdate(request(
+                filter(otherOwner.getId(), null, null, BASE.plusDays(10)), setField("name", "None")));
+        assertEquals(0, none.getUpdated());
+        assertEquals(0, none.getChunks());
+    }
+
+    // Test an id list is deduplicated, chunked, and still narrowed by the other criteria
+    @Test
+    public void testBulkUpdate_IdList() {
+        List<Long> ids = Arrays.asList(tasks.get(4).getId(), tasks.get(0).getId(), tasks.get(2).getId(),
+                tasks.get(0).getId(), otherTask.getId());
+        BulkTaskUpdateResult result = tasksServices.bulkUpdate(
+                request(filter(owner.getId(), ids, null, null), setField("name", "Picked")));
+
+        assertEquals(3, result.getUpdated());
+        assertEquals(2, result.getChunks());
+        assertNames("Picked", "Task 1", "Picked", "Task 3", "Picked");
+        assertEquals("Other", reload(otherTask).getName());
+    }
+
+    // Test the native TIMESTAMPADD update, forwards and backwards
+    @Test
+    public void testBulkUpdate_ShiftDeadline() {
+        List<Long> ids = Arrays.asList(tasks.get(0).getId(), tasks.get(1).getId(), tasks.get(2).getId());
+        BulkTaskUpdateResult forward = tasksServices.bulkUpdate(
+                request(filter(null, ids, null, null), shift(Duration.ofHours(36).plusSeconds(5))));
+        assertEquals(3, forward.getUpdated());
+        assertEquals(BASE.plusHours(36).plusSeconds(5), reload(tasks.get(0)).getDeadline());
+        assertEquals(BASE.plusDays(2).plusHours(36).plusSeconds(5), reload(tasks.get(2)).getDeadline());
+        assertEquals(BASE.plusDays(3), reload(tasks.get(3)).getDeadline());
+
+        tasksServices.bulkUpdate(request(filter(owner.getId(), null, null, null), shift(Duration.ofDays(-1))));
+        assertEquals(BASE.plusHours(12).plusSeconds(5), reload(tasks.get(0)).getDeadline());
+        assertEquals(BASE.plusDays(3), reload(tasks.get(4)).getDeadline());
+    }
+
+    // Test a duration with a fraction of a second is rejected rather than truncated
+    @Test
+    public void testBulkUpdate_ShiftDeadline_SubSecondRejected() {
+        try {
+            tasksServices.bulkUpdate(request(filter(owner.getId(), null, null, null), shift(Duration.ofMillis(1500))));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(BASE, reload(tasks.get(0)).getDeadline());
+        }
+    }
+
+    // Test SET_FIELD on the deadline sets and clears it
+    @Test
+    public void testBulkUpdate_SetDeadline() {
+        List<Long> ids = Collections.singletonList(tasks.get(1).getId());
+        tasksServices.bulkUpdate(request(filter(null, ids, null, null), setField("deadline", "2031-02-03T04:05:06")));
+        assertEquals(LocalDateTime.of(2031, 2, 3, 4, 5, 6), reload(tasks.get(1)).getDeadline());
+
+        tasksServices.bulkUpdate(request(filter(null, ids, null, null), setField("deadline", null)));
+        assertNull(reload(tasks.get(1)).getDeadline());
+    }
+
+    // Test a reassignment across chunks moves every matching task
+    @Test
+    public void testBulkUpdate_SetOwner() {
+        BulkTaskUpdateRequest.Operation operation = new BulkTaskUpdateRequest.Operation();
+        operation.setType(BulkTaskUpdateRequest.OperationType.SET_OWNER);
+        operation.setUserId(otherOwner.getId());
+
+        BulkTaskUpdateResult result = tasksServices.bulkUpdate(request(filter(owner.getId(), null, null, null), operation));
+
+        assertEquals(5, result.getUpdated());
+        assertEquals(6, taskRepository.findAllByUser(otherOwner).size());
+        assertTrue(taskRepository.findAllByUser(owner).isEmpty());
+    }
+
+    // Test invalid requests are rejected before anything is written
+    @Test
+    public void testBulkUpdate_InvalidRequests() {
+        BulkTaskUpdateRequest.Filter byOwner = filter(owner.getId(), null, null, null);
+        BulkTaskUpdateRequest.Operation unknownOwner = new BulkTaskUpdateRequest.Operation();
+        unknownOwner.setType(BulkTaskUpdateRequest.OperationType.SET_OWNER);
+        unknownOwner.setUserId(-1L);
+
+        assertRejected(request(new BulkTaskUpdateRequest.Filter(), setField("name", "Everything")));
+        assertRejected(request(byOwner, new BulkTaskUpdateRequest.Operation()));
+        assertRejected(request(byOwner, unknownOwner));
+        assertRejected(request(byOwner, shift(null)));
+        assertRejected(request(byOwner, setField("name", null)));
+        assertRejected(request(byOwner, setField("deadline", "next tuesday")));
+        assertRejected(request(byOwner, setField("user", "1")));
+        assertRejected(request(byOwner, setField(null, "value")));
+
+        assertNames("Task 0", "Task 1", "Task 2", "Task 3", "Task 4");
+    }
+
+    private void assertRejected(BulkTaskUpdateRequest request) {
+        try {
+            tasksServices.bulkUpdate(request);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void assertNames(String... names) {
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], reload(tasks.get(i)).getName());
+        }
+    }
+
+    private Task reload(Task task) {
+        return taskRepository.findById(task.getId()).get();
+    }
+
+    private static BulkTaskUpdateRequest request(BulkTaskUpdateRequest.Filter filter,
+                                                 BulkTaskUpdateRequest.Operation operation) {
+        BulkTaskUpdateRequest request = new BulkTaskUpdateRequest();
+        request.setFilter(filter);
+        request.setOperation(operation);
+        return request;
+    }
+
+    private static BulkTaskUpdateRequest.Filter filter(Long userId, List<Long> ids,
+                                                       LocalDateTime deadlineFrom, LocalDateTime deadlineTo) {
+        BulkTaskUpdateRequest.Filter filter = new BulkTaskUpdateRequest.Filter();
+        filter.setUserId(userId);
+        filter.setIds(ids);
+        filter.setDeadlineFrom(deadlineFrom);
+        filter.setDeadlineTo(deadlineTo);
+        return filter;
+    }
+
+    private static BulkTaskUpdateRequest.Operation setField(String field, String value) {
+        BulkTaskUpdateRequest.Operation operation = new BulkTaskUpdateRequest.Operation();
+        operation.setType(BulkTaskUpdateRequest.OperationType.SET_FIELD);
+        operation.setField(field);
+        operation.setValue(value);
+        return operation;
+    }
+
+    private static BulkTaskUpdateRequest.Operation shift(Duration duration) {
+        BulkTaskUpdateRequest.Operation operation = new BulkTaskUpdateRequest.Operation();
+        operation.setType(BulkTaskUpdateRequest.OperationType.SHIFT_DEADLINE);
+        operation.setDuration(duration);
+        return operation;
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setUserName(name);
+        user.setPassword("password");
+        return user;
+    }
+
+    private static Task task(String name, User owner, LocalDateTime deadline) {
+        Task task = new Task();
+        task.setName(name);
+        task.setDescription(name.equals("Other") ? "Other's description" : "Description of " + name);
+        task.setDeadline(deadline);
+        task.setUser(owner);
+        return task;
+    }
+}
@@ -0,0 +1,30 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.dto.MultiGetResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MultiGetTest {
+
+    // Test results follow the requested order and unknown ids are reported
+    @Test
+    public void testLoad_PreservesOrderAndReportsMissing() {
+        List<List<Long>> queries = new ArrayList<>();
+
+        MultiGetResult<Long> result = MultiGet.load(Arrays.asList(5L, 3L, 8L, 3L, 1L), 2, ids -> {
+            queries.add(new ArrayList<>(ids));
+            // Return in a different order and leave out 8
+            return ids.stream().filter(id -> id != 8L).sorted().collect(Collectors.toList());
+        }, id -> id);
+
+        assertEquals(Arrays.asList(5L, 3L, 1L), result.getFound());
+        assertEquals(Arrays.asList(8L), result.getMissing());
+        assertEquals(Arrays.asList(Arrays.asList(5L, 3L), Arrays.asList(8L, 1L)), queries);
+    }
+}
@@ -0,0 +1,166 @@
+package com.itambition.taskmanagment.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QueryCoalescerTest {
+
+    // Test that concurrent calls with the same key share one execution
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> coalescer.execute("key", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> coalescer.execute("key", () -> {
+                    executions.incrementAndGet();
+                    return "result";
+                })));
+            }
+            awaitWaiters(coalescer, 7);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(1, coalescer.getExecutions());
+            assertEquals(7.0 / 8, coalescer.getCollapseRatio(), 0.0001);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Test that each waiter gets its own copy of the shared result
+    @Test
+    public void testWaitersGetCopies() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<List<String>> leader = pool.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return new ArrayList<>(Collections.singletonList("row"));
+            }, ArrayList::new));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<List<String>>> waiters = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                waiters.add(pool.submit(() -> coalescer.execute("key",
+                        () -> new ArrayList<>(Collections.singletonList("own query")), ArrayList::new)));
+            }
+            awaitWaiters(coalescer, 2);
+            release.countDown();
+
+            List<String> shared = leader.get(5, TimeUnit.SECONDS);
+            List<String> first = waiters.get(0).get(5, TimeUnit.SECONDS);
+            List<String> second = waiters.get(1).get(5, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonList("row"), first);
+            assertEquals(Collections.singletonList("row"), second);
+            assertNotSame(shared, first);
+            assertNotSame(shared, second);
+            assertNotSame(first, second);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Test that waiters receive the leader's exception
+    @Test
+    public void testErrorPropagatesToWaiters() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(pool.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalArgumentException("boom");
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            results.add(pool.submit(() -> coalescer.execute("key", () -> "own query")));
+            awaitWaiters(coalescer, 1);
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("Expected the query error");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalArgumentException);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Test that a waiter gives up after the configured bound and runs the query itself
+    @Test
+    public void testWaiterTimesOut_RunsQueryItself() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = pool.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "slow";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("fast", coalescer.execute("key", () -> "fast"));
+            assertEquals(1, coalescer.getTimeouts());
+            assertEquals(2, coalescer.getExecutions());
+
+            release.countDown();
+            assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Waiters register on the in-flight query before the leader is let go
+    private static void awaitWaiters(QueryCoalescer coalescer, int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.waiters("key") < count) {
+            assertTrue("Waiters did not join the in-flight query", System.nanoTime() < deadline);
+            Thread.yield();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
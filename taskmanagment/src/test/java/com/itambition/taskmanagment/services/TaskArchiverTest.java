@@ -0,0 +1,147 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.models.ArchivedTask;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskArchiveRepository;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Archival against the embedded database, with batches of two rows
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "taskmanagment.archive.retention-days=30",
+        "taskmanagment.archive.batch-size=2",
+        "taskmanagment.archive.batch-pause-ms=0",
+        "taskmanagment.archive.initial-delay-ms=3600000"
+})
+public class TaskArchiverTest {
+
+    @Autowired
+    private TaskArchiver taskArchiver;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+
+    @Before
+    public void setUp() {
+        taskArchiveRepository.deleteAll();
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        User user = new User();
+        user.setUserName("archiver");
+        user.setPassword("password");
+        owner = usersRepository.save(user);
+    }
+
+    // Test every expired task is moved, across several batches, and current ones stay
+    @Test
+    public void testArchiveExpiredTasks_MovesOnlyExpired() {
+        List<Long> expiredIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expiredIds.add(save("Expired " + i, LocalDateTime.now().minusDays(31 + i)).getId());
+        }
+        Task recent = save("Recent", LocalDateTime.now().minusDays(29));
+        Task upcoming = save("Upcoming", LocalDateTime.now().plusDays(1));
+        Task noDeadline = save("No deadline", null);
+
+        taskArchiver.archiveExpiredTasks();
+
+        List<Long> remaining = taskRepository.findAll().stream().map(Task::getId).sorted().collect(Collectors.toList());
+        List<Long> expected = new ArrayList<>();
+        expected.add(recent.getId());
+        expected.add(upcoming.getId());
+        expected.add(noDeadline.getId());
+        assertEquals(expected, remaining);
+
+        List<ArchivedTask> archived = taskArchiveRepository.findAllByUser(owner);
+        assertEquals(expiredIds, archived.stream().map(ArchivedTask::getId).sorted().collect(Collectors.toList()));
+        for (ArchivedTask task : archived) {
+            assertTrue(task.getName().startsWith("Expired"));
+            assertNotNull(task.getArchivedAt());
+        }
+    }
+
+    // Test one batch moves at most batch-size rows, oldest id first
+    @Test
+    public void testArchiveBatch_LimitedToBatchSize() {
+        Task first = save("Expired 0", LocalDateTime.now().minusDays(40));
+        Task second = save("Expired 1", LocalDateTime.now().minusDays(40));
+        save("Expired 2", LocalDateTime.now().minusDays(40));
+
+        int moved = taskArchiver.archiveBatch(LocalDateTime.now().minusDays(30));
+
+        assertEquals(2, moved);
+        assertTrue(taskArchiveRepository.existsById(first.getId()));
+        assertTrue(taskArchiveRepository.existsById(second.getId()));
+        assertEquals(1, taskRepository.count());
+    }
+
+    // Test a task whose deadline moved past the cutoff after its id was read is left in place
+    @Test
+    public void testArchiveQueries_SkipTaskNoLongerExpired() {
+        Task postponed = save("Postponed", LocalDateTime.now().plusDays(1));
+        List<Long> ids = Collections.singletonList(postponed.getId());
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        long tombstones = taskTombstoneRepository.count();
+
+        int deleted = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            assertEquals(0, taskRepository.copyToArchive(ids, cutoff, now));
+            assertEquals(0, taskTombstoneRepository.recordArchival(ids, cutoff, taskVersionCounter.next(), now));
+            return taskRepository.deleteByIdInAndDeadlineBefore(ids, cutoff);
+        });
+
+        assertEquals(0, deleted);
+        assertTrue(taskRepository.existsById(postponed.getId()));
+        assertFalse(taskArchiveRepository.existsById(postponed.getId()));
+        assertEquals(tombstones, taskTombstoneRepository.count());
+    }
+
+    private Task save(String name, LocalDateTime deadline) {
+        Task task = new Task();
+        task.setName(name);
+        task.setDescription(name);
+        task.setDeadline(deadline);
+        task.setUser(owner);
+        return taskRepository.save(task);
+    }
+}
@@ -0,0 +1,101 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Change counters and tombstones on the schema built by the Flyway
+ * migrations, in a database of its own. Only the tables the migrations and
+ * the entities agree on are used.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.datasource.generate-unique-name=true",
+        "taskmanagment.archive.initial-delay-ms=3600000",
+        "taskmanagment.tombstones.initial-delay-ms=3600000",
+        "taskmanagment.tombstones.batch-size=2"
+})
+public class TaskVersionCounterTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private TaskVersionCounter taskVersionCounter;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private TaskTombstoneCompactor taskTombstoneCompactor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Test the migrations seed both counters and each write takes the next version
+    @Test
+    public void testNext_FromMigratedCounter() {
+        assertEquals("5", flyway.info().current().getVersion().getVersion());
+        long current = taskVersionCounter.current();
+        assertTrue(current >= 1);
+
+        long version = transactionTemplate.execute(status -> taskVersionCounter.next());
+
+        assertEquals(current + 1, version);
+        assertEquals(version, taskVersionCounter.current());
+    }
+
+    // Test creating the counters again keeps the existing rows
+    @Test
+    public void testCreateCounters_KeepsExistingRows() {
+        long version = transactionTemplate.execute(status -> taskVersionCounter.next());
+        long compacted = taskVersionCounter.compactedVersion();
+
+        taskVersionCounter.createCounters();
+
+        assertEquals(version, taskVersionCounter.current());
+        assertEquals(compacted, taskVersionCounter.compactedVersion());
+    }
+
+    // Test compaction raises the watermark to the last old tombstone and deletes up to it in batches
+    @Test
+    public void testCompact_OldTombstones() {
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        // Tasks 1 and 2 are the sample rows of the first migration
+        transactionTemplate.execute(status ->
+                taskTombstoneRepository.recordDeletion(Arrays.asList(1L, 2L), taskVersionCounter.next(), old));
+        long lastOld = transactionTemplate.execute(status -> {
+            long version = taskVersionCounter.next();
+            taskTombstoneRepository.recordDeletion(Collections.singletonList(1L), version, old);
+            return version;
+        });
+        long recent = transactionTemplate.execute(status -> {
+            long version = taskVersionCounter.next();
+            taskTombstoneRepository.recordDeletion(Collections.singletonList(1L), version, LocalDateTime.now());
+            return version;
+        });
+
+        assertEquals(3, taskTombstoneCompactor.compact(LocalDateTime.now().minusDays(30)));
+
+        assertEquals(lastOld, taskVersionCounter.compactedVersion());
+        assertEquals(1, taskTombstoneRepository.count());
+        assertEquals(Collections.singletonList(1L), taskTombstoneRepository.findDeletedTaskIds(1L, lastOld, recent));
+        // Nothing left to compact; the watermark never moves back
+        assertEquals(0, taskTombstoneCompactor.compact(LocalDateTime.now().minusDays(60)));
+        assertEquals(lastOld, taskVersionCounter.compactedVersion());
+    }
+}
@@ -0,0 +1,127 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.audit.AuditEvent;
+import com.itambition.taskmanagment.audit.AuditLog;
+import com.itambition.taskmanagment.cache.JsonFragmentCache;
+import com.itambition.taskmanagment.models.Task;
+import com.itambition.taskmanagment.models.User;
+import com.itambition.taskmanagment.repositories.TaskRepository;
+import com.itambition.taskmanagment.repositories.TaskTombstoneRepository;
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Audit records and cache invalidation of task writes happen only once the
+ * write has committed
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class TasksServicesCommitTest {
+
+    @Autowired
+    private TasksServices tasksServices;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonFragmentCache jsonFragmentCache;
+
+    @SpyBean
+    private AuditLog auditLog;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    private User owner;
+
+    @Before
+    public void setUp() {
+        taskTombstoneRepository.deleteAll();
+        taskRepository.deleteAll();
+        usersRepository.deleteAll();
+
+        User user = new User();
+        user.setUserName("committer");
+        user.setPassword("password");
+        owner = usersRepository.save(user);
+        reset(auditLog);
+    }
+
+    // Test an update that fails when flushed at commit is neither audited nor invalidated
+    @Test
+    public void testUpdateTask_FailsAtCommit() {
+        Task task = tasksServices.addTask(task("Valid"));
+        reset(auditLog);
+        long generation = jsonFragmentCache.generation();
+
+        char[] tooLong = new char[101];
+        Arrays.fill(tooLong, 'x');
+        task.setName(new String(tooLong));
+        try {
+            tasksServices.updateTask(task);
+            fail("Expected the commit to fail");
+        } catch (RuntimeException e) {
+            // expected: name longer than the column
+        }
+
+        verify(auditLog, never()).record(any(), any(), any());
+        assertEquals(generation, jsonFragmentCache.generation());
+        assertEquals("Valid", taskRepository.findById(task.getId()).get().getName());
+    }
+
+    // Test a write inside a caller's transaction is audited when that transaction commits
+    @Test
+    public void testAddTask_AuditedAfterOuterCommit() {
+        Task created = transactionTemplate.execute(status -> {
+            Task task = tasksServices.addTask(task("Nested"));
+            verify(auditLog, never()).record(any(), any(), any());
+            return task;
+        });
+
+        verify(auditLog).record(AuditEvent.Type.TASK_CREATED, created.getId(), owner.getId());
+    }
+
+    // Test only tasks that existed are audited as deleted, with their owners
+    @Test
+    public void testRemoveTasks_AuditsDeletedRows() {
+        Task task = tasksServices.addTask(task("Doomed"));
+        reset(auditLog);
+
+        tasksServices.removeTasks(Arrays.asList(task.getId(), -1L));
+
+        verify(auditLog).record(AuditEvent.Type.TASK_DELETED, task.getId(), owner.getId());
+        verify(auditLog, never()).record(any(), eq(-1L), any());
+        assertFalse(taskRepository.findById(task.getId()).isPresent());
+    }
+
+    private Task task(String name) {
+        Task task = new Task();
+        task.setName(name);
+        task.setUser(owner);
+        return task;
+    }
+}
@@ -0,0 +1,57 @@
+package com.itambition.taskmanagment.services;
+
+import com.itambition.taskmanagment.repositories.UsersRepository;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class UserNameIndexTest {
+
+    // Test prefix matches are case-insensitive, ordered and limited
+    @Test
+    public void testSearch_PrefixIgnoringCase() {
+        UserNameIndex index = new UserNameIndex();
+        index.rebuild(Arrays.asList("bob", "Alice", "alex", "albert", "carol"));
+
+        assertEquals(Arrays.asList("albert", "alex", "Alice"), index.search("AL", 10));
+        assertEquals(Arrays.asList("albert", "alex"), index.search("al", 2));
+        assertEquals(Collections.emptyList(), index.search("dave", 10));
+    }
+
+    // Test added names are searchable and duplicates are ignored
+    @Test
+    public void testAdd_KeepsOrder() {
+        UserNameIndex index = new UserNameIndex();
+        index.rebuild(Arrays.asList("anna", "zoe"));
+
+        index.add("mike");
+        index.add("Anton");
+        index.add("mike");
+
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList("anna", "Anton"), index.search("an", 10));
+        assertEquals(Arrays.asList("mike"), index.search("m", 10));
+    }
+
+    // Test a name added while a refresh is loading survives the rebuild
+    @Test
+    public void testRefresh_KeepsNamesAddedWhileLoading() {
+        UserNameIndex index = new UserNameIndex();
+        UsersRepository usersRepository = mock(UsersRepository.class);
+        ReflectionTestUtils.setField(index, "usersRepository", usersRepository);
+        when(usersRepository.findAllUserNames()).thenAnswer(invocation -> {
+            index.add("latecomer");
+            return Arrays.asList("early", "later");
+        });
+
+        index.refresh();
+
+        assertEquals(Arrays.asList("latecomer", "later"), index.search("late", 10));
+        assertEquals(3, index.size());
+    }
+}